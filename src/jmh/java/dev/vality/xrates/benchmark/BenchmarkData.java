@@ -0,0 +1,80 @@
+package dev.vality.xrates.benchmark;
+
+import dev.vality.xrates.domain.ExchangeRate;
+import dev.vality.xrates.exchange.CronResolver;
+import dev.vality.xrates.exchange.Source;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.joda.money.CurrencyUnit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class BenchmarkData {
+
+    public static final String SOURCE_ID = "CBR";
+
+    public static final CurrencyUnit RUB = CurrencyUnit.of("RUB");
+
+    private static final Map<String, String> RATES = Map.ofEntries(
+            Map.entry("AUD", "48.5624"),
+            Map.entry("GBP", "95.6874"),
+            Map.entry("BRL", "13.6592"),
+            Map.entry("HUF", "0.235018"),
+            Map.entry("HKD", "9.49911"),
+            Map.entry("DKK", "11.5168"),
+            Map.entry("USD", "73.6282"),
+            Map.entry("EUR", "85.853"),
+            Map.entry("INR", "0.981462"),
+            Map.entry("KZT", "0.172951"),
+            Map.entry("CAD", "57.8123"),
+            Map.entry("CNY", "11.3858"),
+            Map.entry("NOK", "8.46047"),
+            Map.entry("PLN", "18.9178"),
+            Map.entry("SGD", "54.7284"),
+            Map.entry("TRY", "8.44391"),
+            Map.entry("CZK", "3.36187"),
+            Map.entry("SEK", "8.42963"),
+            Map.entry("CHF", "79.7451"),
+            Map.entry("ZAR", "4.99237"),
+            Map.entry("KRW", "0.0625613"),
+            Map.entry("JPY", "0.663497"),
+            Map.entry("CLF", "2640.4546")
+    );
+
+    public static List<ExchangeRate> exchangeRates() {
+        return RATES.entrySet().stream()
+                .map(entry -> new ExchangeRate(CurrencyUnit.of(entry.getKey()), RUB, new BigDecimal(entry.getValue())))
+                .collect(Collectors.toList());
+    }
+
+    public static Source source() {
+        return new Source(
+                time -> exchangeRates(),
+                new CronResolver("00 21 * * *", ZoneId.of("Europe/Moscow"), Duration.ofHours(3)),
+                Instant.parse("2015-12-31T21:00:00Z"),
+                SOURCE_ID
+        );
+    }
+
+    public static byte[] readFixture(String name) {
+        try (InputStream inputStream = BenchmarkData.class.getResourceAsStream("/fixtures/" + name)) {
+            if (inputStream == null) {
+                throw new IllegalStateException(String.format("Fixture not found, name='%s'", name));
+            }
+            return inputStream.readAllBytes();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+}
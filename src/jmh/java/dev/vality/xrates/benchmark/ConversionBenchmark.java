@@ -0,0 +1,100 @@
+package dev.vality.xrates.benchmark;
+
+import dev.vality.machinarium.client.AutomatonClient;
+import dev.vality.machinarium.domain.TMachineEvent;
+import dev.vality.machinegun.msgpack.Value;
+import dev.vality.xrates.base.Rational;
+import dev.vality.xrates.cache.ChangeIndex;
+import dev.vality.xrates.cache.NegativeCache;
+import dev.vality.xrates.domain.ConversionMode;
+import dev.vality.xrates.domain.SourceData;
+import dev.vality.xrates.exchange.ScheduleTable;
+import dev.vality.xrates.exchange.Source;
+import dev.vality.xrates.rate.Change;
+import dev.vality.xrates.rate.ConversionRequest;
+import dev.vality.xrates.service.ExchangeRateService;
+import dev.vality.xrates.store.ChangeStore;
+import dev.vality.xrates.util.ProtoUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class ConversionBenchmark {
+
+    private ExchangeRateService exchangeRateService;
+
+    private ChangeIndex changeIndex;
+
+    private ConversionRequest directRequest;
+
+    private ConversionRequest derivedRequest;
+
+    @Setup
+    public void setup() {
+        Source source = BenchmarkData.source();
+        ScheduleTable scheduleTable = source.getScheduleTable();
+        Instant now = Instant.now();
+        long sequenceId = scheduleTable.findSequenceId(now);
+        Change change = ProtoUtil.buildCreatedChange(
+                new SourceData(
+                        scheduleTable.getLowerBound(sequenceId),
+                        scheduleTable.getUpperBound(sequenceId),
+                        scheduleTable.getUpperBound(sequenceId),
+                        BenchmarkData.exchangeRates()
+                )
+        );
+        List<TMachineEvent<Change>> events = List.of(new TMachineEvent<>(sequenceId, now, change));
+
+        changeIndex = new ChangeIndex();
+        exchangeRateService = new ExchangeRateService(
+                stubAutomatonClient(events),
+                List.of(source),
+                changeIndex,
+                new NegativeCache(1000, Duration.ofSeconds(10)),
+                ChangeStore.DISABLED
+        );
+        directRequest = new ConversionRequest("USD", "RUB", 10000).setDatetime(now.toString());
+        derivedRequest = new ConversionRequest("USD", "EUR", 10000).setDatetime(now.toString());
+    }
+
+    @Benchmark
+    public Rational convertIndexed() {
+        return exchangeRateService.getConvertedAmount(BenchmarkData.SOURCE_ID, directRequest, ConversionMode.DIRECT);
+    }
+
+    @Benchmark
+    public Rational convertDerived() {
+        return exchangeRateService.getConvertedAmount(BenchmarkData.SOURCE_ID, derivedRequest, ConversionMode.DERIVED);
+    }
+
+    @Benchmark
+    public Rational convertFromMachinegun() {
+        changeIndex.clear();
+        return exchangeRateService.getConvertedAmount(BenchmarkData.SOURCE_ID, directRequest, ConversionMode.DIRECT);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AutomatonClient<Value, Change> stubAutomatonClient(List<TMachineEvent<Change>> events) {
+        return (AutomatonClient<Value, Change>) Proxy.newProxyInstance(
+                AutomatonClient.class.getClassLoader(),
+                new Class<?>[]{AutomatonClient.class},
+                (proxy, method, args) -> {
+                    if ("getEvents".equals(method.getName())) {
+                        return events;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+        );
+    }
+
+}
@@ -0,0 +1,39 @@
+package dev.vality.xrates.benchmark;
+
+import dev.vality.xrates.exchange.CronResolver;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class CronResolverBenchmark {
+
+    private final CronResolver cronResolver =
+            new CronResolver("00 21 * * *", ZoneId.of("Europe/Moscow"), Duration.ofHours(3));
+
+    private final Instant time = Instant.parse("2020-04-11T12:34:56Z");
+
+    @Benchmark
+    public Instant nextExecution() {
+        return cronResolver.getNextExecution(time);
+    }
+
+    @Benchmark
+    public Instant lastExecution() {
+        return cronResolver.getLastExecution(time);
+    }
+
+    @Benchmark
+    public Instant nextExecutionWithDelay() {
+        return cronResolver.getNextExecutionWithDelay(time);
+    }
+
+}
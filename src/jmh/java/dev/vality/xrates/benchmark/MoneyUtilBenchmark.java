@@ -0,0 +1,28 @@
+package dev.vality.xrates.benchmark;
+
+import dev.vality.xrates.util.MoneyUtil;
+import org.apache.commons.math3.fraction.BigFraction;
+import org.joda.money.CurrencyUnit;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class MoneyUtilBenchmark {
+
+    private final CurrencyUnit clf = CurrencyUnit.of("CLF");
+
+    private final BigDecimal rate = new BigDecimal("2640.4546");
+
+    @Benchmark
+    public BigFraction exchangeRateToRationalValue() {
+        return MoneyUtil.exchangeRateToRationalValue(clf, BenchmarkData.RUB, rate);
+    }
+
+}
@@ -0,0 +1,36 @@
+package dev.vality.xrates.benchmark;
+
+import dev.vality.xrates.domain.SourceData;
+import dev.vality.xrates.rate.Change;
+import dev.vality.xrates.util.ProtoUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class ProtoUtilBenchmark {
+
+    private SourceData sourceData;
+
+    @Setup
+    public void setup() {
+        sourceData = new SourceData(
+                Instant.parse("2020-04-10T21:00:00Z"),
+                Instant.parse("2020-04-11T21:00:00Z"),
+                Instant.parse("2020-04-11T18:00:00Z"),
+                BenchmarkData.exchangeRates()
+        );
+    }
+
+    @Benchmark
+    public Change buildCreatedChange() {
+        return ProtoUtil.buildCreatedChange(sourceData);
+    }
+
+}
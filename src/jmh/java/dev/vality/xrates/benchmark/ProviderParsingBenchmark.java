@@ -0,0 +1,66 @@
+package dev.vality.xrates.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vality.xrates.domain.ExchangeRate;
+import dev.vality.xrates.exchange.impl.provider.cbr.CbrResponseParser;
+import dev.vality.xrates.exchange.impl.provider.cbr.data.CbrExchangeRateData;
+import dev.vality.xrates.exchange.impl.provider.psb.PsbResponseParser;
+import dev.vality.xrates.exchange.impl.provider.psb.data.PsbExchangeRootData;
+import org.openjdk.jmh.annotations.*;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class ProviderParsingBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final CbrResponseParser cbrResponseParser = new CbrResponseParser();
+
+    private final PsbResponseParser psbResponseParser = new PsbResponseParser(objectMapper.getFactory());
+
+    private JAXBContext jaxbContext;
+
+    private byte[] cbrResponse;
+
+    private byte[] psbResponse;
+
+    @Setup
+    public void setup() throws JAXBException {
+        jaxbContext = JAXBContext.newInstance(CbrExchangeRateData.class);
+        cbrResponse = BenchmarkData.readFixture("cbr_daily.xml");
+        psbResponse = BenchmarkData.readFixture("psb_rates.json");
+    }
+
+    @Benchmark
+    public Object cbrJaxb() throws JAXBException {
+        return jaxbContext.createUnmarshaller().unmarshal(new ByteArrayInputStream(cbrResponse));
+    }
+
+    @Benchmark
+    public List<ExchangeRate> cbrStax() throws XMLStreamException {
+        return cbrResponseParser.parse(cbrResponse);
+    }
+
+    @Benchmark
+    public PsbExchangeRootData psbJackson() throws IOException {
+        return objectMapper.readValue(psbResponse, PsbExchangeRootData.class);
+    }
+
+    @Benchmark
+    public PsbResponseParser.Result psbStreaming() throws IOException {
+        return psbResponseParser.parse(psbResponse, "MasterCard");
+    }
+
+}
@@ -0,0 +1,56 @@
+package dev.vality.xrates.cache;
+
+import dev.vality.xrates.domain.ChangeSnapshot;
+import dev.vality.xrates.rate.Change;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory index of already retrieved changes, per source, keyed by interval lower bound.
+ * <p>
+ * Changes are never rewritten by machinegun once created, so an indexed change stays valid forever
+ * and lookups for its interval do not need to go to machinegun again.
+ * Every change is decoded into {@link ChangeSnapshot} once, when it gets into the index.
+ */
+@Component
+public class ChangeIndex {
+
+    private final Map<String, NavigableMap<Long, ChangeSnapshot>> snapshotsBySource = new ConcurrentHashMap<>();
+
+    public ChangeSnapshot find(String sourceId, Instant time) {
+        NavigableMap<Long, ChangeSnapshot> snapshots = snapshotsBySource.get(sourceId);
+        if (snapshots == null) {
+            return null;
+        }
+        Map.Entry<Long, ChangeSnapshot> entry = snapshots.floorEntry(time.toEpochMilli());
+        if (entry == null || !entry.getValue().contains(time)) {
+            return null;
+        }
+        return entry.getValue();
+    }
+
+    public ChangeSnapshot put(String sourceId, Change change) {
+        return put(sourceId, ChangeSnapshot.of(change));
+    }
+
+    public ChangeSnapshot put(String sourceId, ChangeSnapshot snapshot) {
+        ChangeSnapshot previous = snapshotsBySource.computeIfAbsent(sourceId, key -> new ConcurrentSkipListMap<>())
+                .putIfAbsent(snapshot.getLowerBound(), snapshot);
+        return previous != null ? previous : snapshot;
+    }
+
+    public int size(String sourceId) {
+        NavigableMap<Long, ChangeSnapshot> snapshots = snapshotsBySource.get(sourceId);
+        return snapshots == null ? 0 : snapshots.size();
+    }
+
+    public void clear() {
+        snapshotsBySource.clear();
+    }
+
+}
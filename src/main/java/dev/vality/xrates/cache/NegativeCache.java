@@ -0,0 +1,57 @@
+package dev.vality.xrates.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of lookups that recently ended with nothing found, e.g. an interval which is due by schedule
+ * but whose change is not yet in machinegun. Entries expire after TTL, the oldest entries are evicted
+ * when the cache is full.
+ */
+@Component
+public class NegativeCache {
+
+    private final long ttlMillis;
+
+    private final Map<String, Long> expirations;
+
+    public NegativeCache(
+            @Value("${service.negativeCache.maxSize}") int maxSize,
+            @Value("${service.negativeCache.ttl}") Duration ttl) {
+        this.ttlMillis = ttl.toMillis();
+        this.expirations = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized boolean contains(String key) {
+        Long expiration = expirations.get(key);
+        if (expiration == null) {
+            return false;
+        }
+        if (expiration <= System.currentTimeMillis()) {
+            expirations.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    public synchronized void put(String key) {
+        if (ttlMillis > 0) {
+            expirations.remove(key);
+            expirations.put(key, System.currentTimeMillis() + ttlMillis);
+        }
+    }
+
+    public synchronized void clear() {
+        expirations.clear();
+    }
+
+}
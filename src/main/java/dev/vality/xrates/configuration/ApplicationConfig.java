@@ -9,33 +9,132 @@ import dev.vality.machinegun.stateproc.AutomatonSrv;
 import dev.vality.machinegun.stateproc.EventSinkSrv;
 import dev.vality.woody.thrift.impl.http.THSpawnClientBuilder;
 import dev.vality.xrates.exception.ProviderUnavailableResultException;
+import dev.vality.xrates.exchange.BackfillExecutor;
+import dev.vality.xrates.exchange.ConcurrentExchangeProvider;
 import dev.vality.xrates.exchange.CronResolver;
+import dev.vality.xrates.exchange.ExchangeProvider;
 import dev.vality.xrates.exchange.Source;
+import dev.vality.xrates.exchange.impl.provider.PooledRequestFactory;
 import dev.vality.xrates.exchange.impl.provider.cbr.CbrExchangeProvider;
 import dev.vality.xrates.exchange.impl.provider.psb.PsbExchangeProvider;
+import dev.vality.xrates.exchange.impl.provider.psb.PsbRatesFetcher;
 import dev.vality.xrates.exchange.impl.provider.psb.data.PsbPaymentSystem;
+import dev.vality.xrates.machinegun.ConcurrencyLimiter;
+import dev.vality.xrates.metrics.MeteredExchangeProvider;
+import dev.vality.xrates.metrics.MeteredProxy;
 import dev.vality.xrates.rate.Change;
 import dev.vality.xrates.service.SecretService;
+import dev.vality.xrates.store.ChangeStore;
+import dev.vality.xrates.store.FileProviderResponseCache;
+import dev.vality.xrates.store.MappedChangeStore;
+import dev.vality.xrates.store.ProviderResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.NestedRuntimeException;
 import org.springframework.core.io.Resource;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.client.DefaultResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @Configuration
 public class ApplicationConfig {
 
+    public static final String MG_CLIENT_METRIC_NAME = "xrates.mg.requests";
+
+    @Bean
+    public PooledRequestFactory cbrRequestFactory(
+            @Value("${sources.http.cbr.maxConnections}") int maxConnections,
+            @Value("${sources.http.connectTimeout}") Duration connectTimeout,
+            @Value("${sources.http.readTimeout}") Duration readTimeout,
+            @Value("${sources.http.totalTimeout}") Duration totalTimeout,
+            @Value("${sources.http.idleTimeout}") Duration idleTimeout,
+            MeterRegistry meterRegistry
+    ) {
+        return new PooledRequestFactory(CbrExchangeProvider.PROVIDER_NAME, maxConnections,
+                connectTimeout, readTimeout, totalTimeout, idleTimeout, meterRegistry);
+    }
+
+    @Bean
+    public PooledRequestFactory psbRequestFactory(
+            @Value("${sources.http.psb.maxConnections}") int maxConnections,
+            @Value("${sources.http.connectTimeout}") Duration connectTimeout,
+            @Value("${sources.http.readTimeout}") Duration readTimeout,
+            @Value("${sources.http.totalTimeout}") Duration totalTimeout,
+            @Value("${sources.http.idleTimeout}") Duration idleTimeout,
+            MeterRegistry meterRegistry
+    ) {
+        return new PooledRequestFactory(PsbExchangeProvider.PROVIDER_NAME, maxConnections,
+                connectTimeout, readTimeout, totalTimeout, idleTimeout, meterRegistry);
+    }
+
+    @Bean
+    public RestTemplate cbrRestTemplate(PooledRequestFactory cbrRequestFactory) {
+        return buildRestTemplate(cbrRequestFactory);
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
+    public RestTemplate psbRestTemplate(PooledRequestFactory psbRequestFactory) {
+        return buildRestTemplate(psbRequestFactory);
+    }
+
+    private static ExchangeProvider backfillProvider(
+            ExchangeProvider exchangeProvider,
+            String sourceId,
+            BackfillExecutor backfillExecutor,
+            double requestsPerSecond,
+            MeterRegistry meterRegistry
+    ) {
+        return new ConcurrentExchangeProvider(
+                new MeteredExchangeProvider(exchangeProvider, sourceId, meterRegistry),
+                backfillExecutor,
+                requestsPerSecond
+        );
+    }
+
+    /**
+     * Psb sources share one endpoint at sources.psb.url, the former per-source urls are still honored.
+     */
+    private static String resolvePsbUrl(String url, String legacyMastercardUrl, String legacyVisaUrl) {
+        Set<String> legacyUrls = Stream.of(legacyMastercardUrl, legacyVisaUrl)
+                .filter(StringUtils::hasText)
+                .collect(Collectors.toSet());
+        if (legacyUrls.isEmpty()) {
+            return url;
+        }
+        if (legacyUrls.size() > 1) {
+            throw new IllegalStateException(String.format(
+                    "Psb sources share one endpoint, set sources.psb.url instead of different " +
+                            "sources.psb-mastercard.provider.url='%s' and sources.psb-visa.provider.url='%s'",
+                    legacyMastercardUrl, legacyVisaUrl
+            ));
+        }
+        String legacyUrl = legacyUrls.iterator().next();
+        log.warn("Properties sources.psb-*.provider.url are deprecated, use sources.psb.url instead, url='{}'",
+                legacyUrl);
+        return legacyUrl;
+    }
+
+    private RestTemplate buildRestTemplate(ClientHttpRequestFactory requestFactory) {
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
         restTemplate.setErrorHandler(
                 new DefaultResponseErrorHandler() {
 
@@ -56,9 +155,15 @@ public class ApplicationConfig {
     public CbrExchangeProvider cbrExchangeProvider(
             @Value("${sources.cbr.provider.url}") String url,
             @Value("${sources.cbr.provider.timezone}") ZoneId timezone,
-            RestTemplate restTemplate
+            RestTemplate cbrRestTemplate,
+            ProviderResponseCache providerResponseCache
     ) {
-        return new CbrExchangeProvider(url, timezone, restTemplate);
+        return new CbrExchangeProvider(url, timezone, cbrRestTemplate, providerResponseCache);
+    }
+
+    @Bean
+    public BackfillExecutor backfillExecutor(@Value("${sources.backfill.parallelism}") int parallelism) {
+        return new BackfillExecutor(parallelism);
     }
 
     @Bean
@@ -68,28 +173,58 @@ public class ApplicationConfig {
             @Value("${sources.cbr.cron.value}") String cron,
             @Value("${sources.cbr.cron.timezone}") ZoneId timezone,
             @Value("${sources.cbr.cron.delay}") Duration delay,
-            @Value("${sources.cbr.initialTime}") Instant initialTime
+            @Value("${sources.cbr.initialTime}") Instant initialTime,
+            @Value("${sources.backfill.requestsPerSecond}") double backfillRequestsPerSecond,
+            BackfillExecutor backfillExecutor,
+            MeterRegistry meterRegistry
     ) {
         CronResolver cronResolver = new CronResolver(cron, timezone, delay);
-        return new Source(cbrExchangeProvider, cronResolver, initialTime, sourceId);
+        return new Source(
+                backfillProvider(
+                        cbrExchangeProvider,
+                        sourceId,
+                        backfillExecutor,
+                        backfillRequestsPerSecond,
+                        meterRegistry
+                ),
+                cronResolver,
+                initialTime,
+                sourceId
+        );
+    }
+
+    @Bean
+    public PsbRatesFetcher psbRatesFetcher(
+            @Value("${sources.psb.url}") String url,
+            @Value("${sources.psb-mastercard.provider.url:}") String legacyMastercardUrl,
+            @Value("${sources.psb-visa.provider.url:}") String legacyVisaUrl,
+            @Value("${sources.psb.holdTime}") Duration holdTime,
+            RestTemplate psbRestTemplate,
+            SecretService secretService
+    ) {
+        // subscribers are added by psb providers built on the fetcher
+        return new PsbRatesFetcher(
+                resolvePsbUrl(url, legacyMastercardUrl, legacyVisaUrl),
+                psbRestTemplate,
+                secretService,
+                Collections.emptyList(),
+                holdTime);
     }
 
     @Bean
     public PsbExchangeProvider psbMastercardExchangeProvider(
-            @Value("${sources.psb-mastercard.provider.url}") String url,
             @Value("${sources.psb-mastercard.provider.timezone}") ZoneId timezone,
             @Value("${sources.psb-mastercard.provider.paymentSystem}") PsbPaymentSystem paymentSystem,
-            RestTemplate restTemplate,
+            PsbRatesFetcher psbRatesFetcher,
             ObjectMapper objectMapper,
-            SecretService secretService
+            ProviderResponseCache providerResponseCache
     ) {
         return new PsbExchangeProvider(
-                url,
                 timezone,
                 paymentSystem,
-                restTemplate,
+                psbRatesFetcher,
                 objectMapper,
-                secretService);
+                providerResponseCache);
     }
 
     @Bean
@@ -99,28 +234,40 @@ public class ApplicationConfig {
             @Value("${sources.psb-mastercard.cron.value}") String cron,
             @Value("${sources.psb-mastercard.cron.timezone}") ZoneId timezone,
             @Value("${sources.psb-mastercard.cron.delay}") Duration delay,
-            @Value("${sources.psb-mastercard.initialTime}") Instant initialTime
+            @Value("${sources.psb-mastercard.initialTime}") Instant initialTime,
+            @Value("${sources.backfill.requestsPerSecond}") double backfillRequestsPerSecond,
+            BackfillExecutor backfillExecutor,
+            MeterRegistry meterRegistry
     ) {
         CronResolver cronResolver = new CronResolver(cron, timezone, delay);
-        return new Source(psbMastercardExchangeProvider, cronResolver, initialTime, sourceId);
+        return new Source(
+                backfillProvider(
+                        psbMastercardExchangeProvider,
+                        sourceId,
+                        backfillExecutor,
+                        backfillRequestsPerSecond,
+                        meterRegistry
+                ),
+                cronResolver,
+                initialTime,
+                sourceId
+        );
     }
 
     @Bean
     public PsbExchangeProvider psbVisaExchangeProvider(
-            @Value("${sources.psb-visa.provider.url}") String url,
             @Value("${sources.psb-visa.provider.timezone}") ZoneId timezone,
             @Value("${sources.psb-visa.provider.paymentSystem}") PsbPaymentSystem paymentSystem,
-            RestTemplate restTemplate,
+            PsbRatesFetcher psbRatesFetcher,
             ObjectMapper objectMapper,
-            SecretService secretService
+            ProviderResponseCache providerResponseCache
     ) {
         return new PsbExchangeProvider(
-                url,
                 timezone,
                 paymentSystem,
-                restTemplate,
+                psbRatesFetcher,
                 objectMapper,
-                secretService);
+                providerResponseCache);
     }
 
     @Bean
@@ -130,21 +277,69 @@ public class ApplicationConfig {
             @Value("${sources.psb-visa.cron.value}") String cron,
             @Value("${sources.psb-visa.cron.timezone}") ZoneId timezone,
             @Value("${sources.psb-visa.cron.delay}") Duration delay,
-            @Value("${sources.psb-visa.initialTime}") Instant initialTime
+            @Value("${sources.psb-visa.initialTime}") Instant initialTime,
+            @Value("${sources.backfill.requestsPerSecond}") double backfillRequestsPerSecond,
+            BackfillExecutor backfillExecutor,
+            MeterRegistry meterRegistry
     ) {
         CronResolver cronResolver = new CronResolver(cron, timezone, delay);
-        return new Source(psbVisaExchangeProvider, cronResolver, initialTime, sourceId);
+        return new Source(
+                backfillProvider(
+                        psbVisaExchangeProvider,
+                        sourceId,
+                        backfillExecutor,
+                        backfillRequestsPerSecond,
+                        meterRegistry
+                ),
+                cronResolver,
+                initialTime,
+                sourceId
+        );
     }
 
     @Bean
+    public ProviderResponseCache providerResponseCache(
+            @Value("${sources.responseCache.enabled}") boolean enabled,
+            @Value("${sources.responseCache.path}") Path path
+    ) throws IOException {
+        if (!enabled) {
+            return ProviderResponseCache.DISABLED;
+        }
+        return new FileProviderResponseCache(path);
+    }
+
+    @Bean
+    public ChangeStore changeStore(
+            @Value("${service.changeStore.enabled}") boolean enabled,
+            @Value("${service.changeStore.path}") Path path,
+            @Value("${service.changeStore.initialSize}") DataSize initialSize,
+            @Value("${service.changeStore.flushInterval}") Duration flushInterval
+    ) throws IOException {
+        if (!enabled) {
+            return ChangeStore.DISABLED;
+        }
+        return new MappedChangeStore(path, initialSize.toBytes(), flushInterval);
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "service.mg.inMemory.enabled", havingValue = "false", matchIfMissing = true)
     public AutomatonSrv.Iface automationThriftClient(
             @Value("${service.mg.automaton.url}") Resource resource,
-            @Value("${service.mg.networkTimeout}") int networkTimeout
+            @Value("${service.mg.networkTimeout}") int networkTimeout,
+            ObjectProvider<ConcurrencyLimiter> concurrencyLimiter,
+            MeterRegistry meterRegistry
     ) throws IOException {
-        return new THSpawnClientBuilder()
+        AutomatonSrv.Iface client = new THSpawnClientBuilder()
                 .withAddress(resource.getURI())
                 .withNetworkTimeout(networkTimeout)
                 .build(AutomatonSrv.Iface.class);
+        return MeteredProxy.wrap(
+                AutomatonSrv.Iface.class,
+                limitConcurrency(concurrencyLimiter, AutomatonSrv.Iface.class, client, "automaton"),
+                meterRegistry,
+                MG_CLIENT_METRIC_NAME,
+                "automaton"
+        );
     }
 
     @Bean
@@ -156,14 +351,24 @@ public class ApplicationConfig {
     }
 
     @Bean
+    @ConditionalOnProperty(value = "service.mg.inMemory.enabled", havingValue = "false", matchIfMissing = true)
     public EventSinkSrv.Iface eventSinkThriftClient(
             @Value("${service.mg.eventSink.url}") Resource resource,
-            @Value("${service.mg.networkTimeout}") int networkTimeout
+            @Value("${service.mg.networkTimeout}") int networkTimeout,
+            ObjectProvider<ConcurrencyLimiter> concurrencyLimiter,
+            MeterRegistry meterRegistry
     ) throws IOException {
-        return new THSpawnClientBuilder()
+        EventSinkSrv.Iface client = new THSpawnClientBuilder()
                 .withAddress(resource.getURI())
                 .withNetworkTimeout(networkTimeout)
                 .build(EventSinkSrv.Iface.class);
+        return MeteredProxy.wrap(
+                EventSinkSrv.Iface.class,
+                limitConcurrency(concurrencyLimiter, EventSinkSrv.Iface.class, client, "event_sink"),
+                meterRegistry,
+                MG_CLIENT_METRIC_NAME,
+                "event_sink"
+        );
     }
 
     @Bean
@@ -174,4 +379,14 @@ public class ApplicationConfig {
         return new TBaseEventSinkClient<>(eventSinkThriftClient, eventSinkId, Change.class);
     }
 
+    public static <T> T limitConcurrency(
+            ObjectProvider<ConcurrencyLimiter> concurrencyLimiter,
+            Class<T> type,
+            T client,
+            String clientName
+    ) {
+        ConcurrencyLimiter limiter = concurrencyLimiter.getIfAvailable();
+        return limiter == null ? client : limiter.wrap(type, client, clientName);
+    }
+
 }
@@ -0,0 +1,49 @@
+package dev.vality.xrates.configuration;
+
+import dev.vality.xrates.machinegun.ConcurrencyLimiter;
+import dev.vality.xrates.util.VirtualThreadUtil;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs servlet requests on virtual threads instead of the fixed tomcat thread pool.
+ * <p>
+ * Thrift endpoints and machinegun clients are synchronous and run on the request thread, so a request
+ * blocked on machinegun no longer holds a platform thread. Load sent to machinegun is bounded
+ * by {@link ConcurrencyLimiter} instead of the thread pool size.
+ * <p>
+ * Requires a Java 21 runtime, startup fails on older ones. The request executor is owned by this configuration
+ * and is not exposed as a bean, so it doesn't replace the application task executor of spring boot.
+ */
+@Configuration
+@ConditionalOnProperty(value = "service.virtualThreads.enabled", havingValue = "true")
+public class VirtualThreadConfig implements DisposableBean {
+
+    private final ExecutorService requestExecutor = VirtualThreadUtil.newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(requestExecutor);
+    }
+
+    @Bean
+    public ConcurrencyLimiter concurrencyLimiter(
+            @Value("${service.mg.maxConcurrency}") int maxConcurrency,
+            @Value("${service.mg.acquireTimeout}") Duration acquireTimeout) {
+        return new ConcurrencyLimiter(maxConcurrency, acquireTimeout);
+    }
+
+    @Override
+    public void destroy() {
+        requestExecutor.shutdown();
+    }
+
+}
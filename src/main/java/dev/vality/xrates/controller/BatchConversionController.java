@@ -0,0 +1,140 @@
+package dev.vality.xrates.controller;
+
+import dev.vality.xrates.controller.data.BatchConversionRequestData;
+import dev.vality.xrates.controller.data.BatchConversionResponseData;
+import dev.vality.xrates.controller.data.ConversionRequestData;
+import dev.vality.xrates.controller.data.ConversionResultData;
+import dev.vality.xrates.domain.ConversionMode;
+import dev.vality.xrates.domain.ConversionResult;
+import dev.vality.xrates.domain.SourceConversionRequest;
+import dev.vality.xrates.exception.AmountOverflowException;
+import dev.vality.xrates.exception.CurrencyNotFoundException;
+import dev.vality.xrates.exception.QuoteNotFoundException;
+import dev.vality.xrates.exception.UnknownSourceException;
+import dev.vality.xrates.metrics.HandlerMetrics;
+import dev.vality.xrates.metrics.MeteredProxy;
+import dev.vality.xrates.rate.ConversionRequest;
+import dev.vality.xrates.service.ExchangeRateService;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch conversion over plain json, as the rates thrift service has no batch method.
+ * Every request of the batch gets its own result, either converted amount or error code.
+ */
+@Slf4j
+@RestController
+public class BatchConversionController {
+
+    public static final String QUOTE_NOT_FOUND = "quote_not_found";
+    public static final String CURRENCY_NOT_FOUND = "currency_not_found";
+    public static final String UNKNOWN_SOURCE = "unknown_source";
+    public static final String AMOUNT_OVERFLOW = "amount_overflow";
+    public static final String INVALID_DATETIME = "invalid_datetime";
+
+    private static final String HANDLER_NAME = "rates_batch";
+
+    private final ExchangeRateService exchangeRateService;
+
+    private final HandlerMetrics handlerMetrics;
+
+    private final int maxBatchSize;
+
+    public BatchConversionController(
+            ExchangeRateService exchangeRateService,
+            HandlerMetrics handlerMetrics,
+            @Value("${service.conversion.maxBatchSize}") int maxBatchSize) {
+        this.exchangeRateService = exchangeRateService;
+        this.handlerMetrics = handlerMetrics;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @PostMapping("/v1/rates/batch")
+    public BatchConversionResponseData getConvertedAmounts(@RequestBody BatchConversionRequestData batchRequest) {
+        Timer.Sample sample = handlerMetrics.start();
+        String outcome = MeteredProxy.OUTCOME_SUCCESS;
+        try {
+            List<SourceConversionRequest> requests = toSourceConversionRequests(batchRequest);
+            ConversionMode conversionMode = batchRequest.getConversionMode();
+            List<ConversionResult> results = conversionMode == null
+                    ? exchangeRateService.getConvertedAmounts(requests)
+                    : exchangeRateService.getConvertedAmounts(requests, conversionMode);
+
+            List<ConversionResultData> resultData = new ArrayList<>(results.size());
+            for (ConversionResult result : results) {
+                resultData.add(toResultData(result));
+            }
+            return new BatchConversionResponseData(resultData);
+        } catch (RuntimeException ex) {
+            outcome = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            handlerMetrics.stop(sample, HANDLER_NAME, "getConvertedAmounts", null, outcome);
+        }
+    }
+
+    private List<SourceConversionRequest> toSourceConversionRequests(BatchConversionRequestData batchRequest) {
+        List<ConversionRequestData> requests = batchRequest.getRequests();
+        if (requests == null || requests.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format(
+                    "Batch must contain up to %d requests", maxBatchSize
+            ));
+        }
+        List<SourceConversionRequest> sourceConversionRequests = new ArrayList<>(requests.size());
+        for (ConversionRequestData request : requests) {
+            if (request == null || request.getSourceId() == null
+                || request.getSource() == null || request.getDestination() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Every request must contain sourceId, source and destination");
+            }
+            sourceConversionRequests.add(new SourceConversionRequest(
+                    request.getSourceId(),
+                    new ConversionRequest(request.getSource(), request.getDestination(), request.getAmount())
+                            .setDatetime(request.getDatetime())
+            ));
+        }
+        return sourceConversionRequests;
+    }
+
+    private ConversionResultData toResultData(ConversionResult result) {
+        if (result.isSuccess()) {
+            return new ConversionResultData(
+                    result.getConvertedAmount().getP(),
+                    result.getConvertedAmount().getQ(),
+                    null
+            );
+        }
+        return new ConversionResultData(null, null, toErrorCode(result.getError()));
+    }
+
+    private String toErrorCode(RuntimeException error) {
+        if (error instanceof QuoteNotFoundException) {
+            return QUOTE_NOT_FOUND;
+        }
+        if (error instanceof CurrencyNotFoundException) {
+            return CURRENCY_NOT_FOUND;
+        }
+        if (error instanceof UnknownSourceException) {
+            return UNKNOWN_SOURCE;
+        }
+        if (error instanceof AmountOverflowException) {
+            return AMOUNT_OVERFLOW;
+        }
+        if (error instanceof DateTimeParseException) {
+            return INVALID_DATETIME;
+        }
+        log.warn("Unexpected conversion error in batch", error);
+        throw error;
+    }
+
+}
@@ -0,0 +1,20 @@
+package dev.vality.xrates.controller.data;
+
+import dev.vality.xrates.domain.ConversionMode;
+import lombok.Data;
+import lombok.ToString;
+
+import java.util.List;
+
+@Data
+@ToString
+public class BatchConversionRequestData {
+
+    /**
+     * Mode of all conversions of the batch, {@code service.conversion.mode} if not set.
+     */
+    private ConversionMode conversionMode;
+
+    private List<ConversionRequestData> requests;
+
+}
@@ -0,0 +1,21 @@
+package dev.vality.xrates.controller.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchConversionResponseData {
+
+    /**
+     * Results in the order of requests.
+     */
+    private List<ConversionResultData> results;
+
+}
@@ -0,0 +1,23 @@
+package dev.vality.xrates.controller.data;
+
+import lombok.Data;
+import lombok.ToString;
+
+@Data
+@ToString
+public class ConversionRequestData {
+
+    private String sourceId;
+
+    private String source;
+
+    private String destination;
+
+    private long amount;
+
+    /**
+     * Time of conversion, now if not set.
+     */
+    private String datetime;
+
+}
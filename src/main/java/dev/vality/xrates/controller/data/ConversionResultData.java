@@ -0,0 +1,25 @@
+package dev.vality.xrates.controller.data;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Converted amount as p/q rational, or error code if the request failed.
+ */
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ConversionResultData {
+
+    private Long p;
+
+    private Long q;
+
+    private String error;
+
+}
@@ -0,0 +1,65 @@
+package dev.vality.xrates.domain;
+
+import dev.vality.xrates.base.TimestampInterval;
+import dev.vality.xrates.rate.Change;
+import dev.vality.xrates.rate.ExchangeRateData;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Change decoded once per event: interval bounds as epoch milliseconds and quotes as a hash index
+ * of reduced rationals, so the read path neither parses timestamps nor walks the thrift object graph.
+ */
+@Getter
+@ToString(of = {"lowerBound", "upperBound"})
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class ChangeSnapshot {
+
+    private final Change change;
+    private final long lowerBound;
+    private final long upperBound;
+    private final QuoteIndex quoteIndex;
+    private volatile CrossRateMatrix crossRateMatrix;
+
+    public static ChangeSnapshot of(Change change) {
+        ExchangeRateData exchangeRateData = change.getCreated().getExchangeRateData();
+        TimestampInterval interval = exchangeRateData.getInterval();
+        return new ChangeSnapshot(
+                change,
+                Instant.parse(interval.getLowerBoundInclusive()).toEpochMilli(),
+                Instant.parse(interval.getUpperBoundExclusive()).toEpochMilli(),
+                QuoteIndex.of(exchangeRateData.getQuotes())
+        );
+    }
+
+    public boolean contains(Instant time) {
+        long millis = time.toEpochMilli();
+        return millis >= lowerBound && millis < upperBound;
+    }
+
+    public Instant getLowerBoundInstant() {
+        return Instant.ofEpochMilli(lowerBound);
+    }
+
+    public Instant getUpperBoundInstant() {
+        return Instant.ofEpochMilli(upperBound);
+    }
+
+    public ExchangeRateData getExchangeRateData() {
+        return change.getCreated().getExchangeRateData();
+    }
+
+    public CrossRateMatrix getCrossRateMatrix() {
+        CrossRateMatrix matrix = crossRateMatrix;
+        if (matrix == null) {
+            matrix = CrossRateMatrix.of(getExchangeRateData().getQuotes());
+            crossRateMatrix = matrix;
+        }
+        return matrix;
+    }
+
+}
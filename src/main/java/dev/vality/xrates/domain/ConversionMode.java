@@ -0,0 +1,15 @@
+package dev.vality.xrates.domain;
+
+public enum ConversionMode {
+
+    /**
+     * Only published quotes are used.
+     */
+    DIRECT,
+
+    /**
+     * Published quotes are used if present, otherwise inverse and cross rates are derived through pivot currency.
+     */
+    DERIVED
+
+}
@@ -0,0 +1,28 @@
+package dev.vality.xrates.domain;
+
+import dev.vality.xrates.base.Rational;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class ConversionResult {
+
+    private final Rational convertedAmount;
+    private final RuntimeException error;
+
+    public static ConversionResult success(Rational convertedAmount) {
+        return new ConversionResult(convertedAmount, null);
+    }
+
+    public static ConversionResult failure(RuntimeException error) {
+        return new ConversionResult(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+}
@@ -0,0 +1,133 @@
+package dev.vality.xrates.domain;
+
+import dev.vality.xrates.rate.Quote;
+import org.apache.commons.math3.fraction.BigFraction;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matrix of exchange rates between every pair of currencies quoted in a change, in minor units.
+ * <p>
+ * Published quotes are used as is, missing pairs are derived as inverse of the opposite quote
+ * or as cross rate through the pivot currency, which is the most common destination currency of the quotes
+ * (e.g. RUB for cbr and psb sources). All rates are reduced rationals, so a conversion is a single lookup.
+ */
+public class CrossRateMatrix {
+
+    private final int[] currencies;
+
+    private final BigFraction[] rates;
+
+    private CrossRateMatrix(int[] currencies, BigFraction[] rates) {
+        this.currencies = currencies;
+        this.rates = rates;
+    }
+
+    public static CrossRateMatrix of(List<Quote> quotes) {
+        List<Quote> safeQuotes = quotes == null ? List.of() : quotes;
+        int[] currencies = collectCurrencies(safeQuotes);
+        int size = currencies.length;
+        BigFraction[] rates = new BigFraction[size * size];
+        for (Quote quote : safeQuotes) {
+            int source = indexOf(currencies, QuoteIndex.packCode(quote.getSource().getSymbolicCode()));
+            int destination = indexOf(currencies, QuoteIndex.packCode(quote.getDestination().getSymbolicCode()));
+            if (source >= 0 && destination >= 0 && rates[source * size + destination] == null) {
+                rates[source * size + destination] = new BigFraction(
+                        quote.getExchangeRate().getP(),
+                        quote.getExchangeRate().getQ()
+                );
+            }
+        }
+
+        int pivot = findPivot(currencies, safeQuotes);
+        BigFraction[] toPivot = new BigFraction[size];
+        for (int i = 0; i < size && pivot >= 0; i++) {
+            toPivot[i] = i == pivot ? BigFraction.ONE : direct(rates, size, i, pivot);
+        }
+
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (rates[i * size + j] != null) {
+                    continue;
+                }
+                if (i == j) {
+                    rates[i * size + j] = BigFraction.ONE;
+                } else if (rates[j * size + i] != null && rates[j * size + i].compareTo(BigFraction.ZERO) != 0) {
+                    rates[i * size + j] = rates[j * size + i].reciprocal();
+                } else if (pivot >= 0 && toPivot[i] != null && toPivot[j] != null
+                           && toPivot[j].compareTo(BigFraction.ZERO) != 0) {
+                    rates[i * size + j] = toPivot[i].divide(toPivot[j]);
+                }
+            }
+        }
+        return new CrossRateMatrix(currencies, rates);
+    }
+
+    /**
+     * Find rate by source and destination currency.
+     *
+     * @return rate in minor units, or null if it can't be derived
+     */
+    public BigFraction find(String sourceCurrency, String destinationCurrency) {
+        int source = indexOf(currencies, QuoteIndex.packCode(sourceCurrency));
+        int destination = indexOf(currencies, QuoteIndex.packCode(destinationCurrency));
+        if (source < 0 || destination < 0) {
+            return null;
+        }
+        return rates[source * currencies.length + destination];
+    }
+
+    private static BigFraction direct(BigFraction[] rates, int size, int source, int destination) {
+        BigFraction rate = rates[source * size + destination];
+        if (rate != null) {
+            return rate;
+        }
+        BigFraction opposite = rates[destination * size + source];
+        if (opposite != null && opposite.compareTo(BigFraction.ZERO) != 0) {
+            return opposite.reciprocal();
+        }
+        return null;
+    }
+
+    private static int findPivot(int[] currencies, List<Quote> quotes) {
+        Map<Integer, Integer> destinationCounts = new HashMap<>();
+        int pivot = -1;
+        int pivotCount = 0;
+        for (Quote quote : quotes) {
+            int destination = indexOf(currencies, QuoteIndex.packCode(quote.getDestination().getSymbolicCode()));
+            if (destination < 0) {
+                continue;
+            }
+            int count = destinationCounts.merge(destination, 1, Integer::sum);
+            if (count > pivotCount) {
+                pivot = destination;
+                pivotCount = count;
+            }
+        }
+        return pivot;
+    }
+
+    private static int[] collectCurrencies(List<Quote> quotes) {
+        return quotes.stream()
+                .flatMapToInt(quote -> Arrays.stream(new int[]{
+                        QuoteIndex.packCode(quote.getSource().getSymbolicCode()),
+                        QuoteIndex.packCode(quote.getDestination().getSymbolicCode())
+                }))
+                .filter(code -> code >= 0)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    private static int indexOf(int[] currencies, int code) {
+        if (code < 0) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(currencies, code);
+        return index >= 0 ? index : -1;
+    }
+
+}
@@ -0,0 +1,29 @@
+package dev.vality.xrates.domain;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class FetchedExchangeRates {
+
+    private final List<ExchangeRate> exchangeRates;
+
+    /**
+     * Whether rates were read from the local response cache instead of requested from the provider.
+     */
+    private final boolean cached;
+
+    public static FetchedExchangeRates requested(List<ExchangeRate> exchangeRates) {
+        return new FetchedExchangeRates(exchangeRates, false);
+    }
+
+    public static FetchedExchangeRates cached(List<ExchangeRate> exchangeRates) {
+        return new FetchedExchangeRates(exchangeRates, true);
+    }
+
+}
@@ -0,0 +1,243 @@
+package dev.vality.xrates.domain;
+
+import dev.vality.xrates.base.Rational;
+import dev.vality.xrates.rate.Quote;
+import org.apache.commons.math3.util.ArithmeticUtils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable hash index of change quotes by currency pair, holding reduced rational rates.
+ * <p>
+ * Every 3-letter currency code is packed into 15 bits (5 bits per latin letter), a currency pair is packed
+ * into a single int key of 30 bits. Keys are stored in an open addressing table with linear probing.
+ * Quoted currencies are kept in a small presence bitset indexed by the low bits of the packed code,
+ * so pairs with unknown currencies are rejected right away; lookups neither scan quotes nor allocate.
+ * <p>
+ * Quotes with codes that can't be packed (e.g. lowercase or non-letter codes) are kept in a string-keyed
+ * fallback map, their rates are stored after the hash table slots.
+ */
+public class QuoteIndex {
+
+    public static final QuoteIndex EMPTY = of(List.of());
+
+    private static final int CODE_LENGTH = 3;
+
+    private static final int LETTER_BITS = 5;
+
+    private static final int CODE_BITS = CODE_LENGTH * LETTER_BITS;
+
+    private static final int PRESENCE_BITS = 1 << 10;
+
+    private final long[] presence;
+
+    private final int[] currencies;
+
+    private final int[] keys;
+
+    private final long[] numerators;
+
+    private final long[] denominators;
+
+    private final int mask;
+
+    private final Set<String> fallbackCurrencies;
+
+    private final Map<String, Integer> fallbackIndexes;
+
+    private QuoteIndex(
+            long[] presence,
+            int[] currencies,
+            int[] keys,
+            long[] numerators,
+            long[] denominators,
+            Set<String> fallbackCurrencies,
+            Map<String, Integer> fallbackIndexes) {
+        this.presence = presence;
+        this.currencies = currencies;
+        this.keys = keys;
+        this.numerators = numerators;
+        this.denominators = denominators;
+        this.mask = keys.length - 1;
+        this.fallbackCurrencies = fallbackCurrencies;
+        this.fallbackIndexes = fallbackIndexes;
+    }
+
+    public static QuoteIndex of(List<Quote> quotes) {
+        int size = quotes == null ? 0 : quotes.size();
+        int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+        long[] presence = new long[PRESENCE_BITS / Long.SIZE];
+        int[] currencies = new int[size * 2];
+        int currencyCount = 0;
+        int[] keys = new int[capacity];
+        long[] numerators = new long[capacity + size];
+        long[] denominators = new long[capacity + size];
+        Set<String> fallbackCurrencies = new HashSet<>();
+        Map<String, Integer> fallbackIndexes = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            Quote quote = quotes.get(i);
+            String sourceCode = quote.getSource().getSymbolicCode();
+            String destinationCode = quote.getDestination().getSymbolicCode();
+            int source = packCode(sourceCode);
+            int destination = packCode(destinationCode);
+            if (source < 0 || destination < 0) {
+                int index = capacity + fallbackIndexes.size();
+                if (fallbackIndexes.putIfAbsent(fallbackKey(sourceCode, destinationCode), index) == null) {
+                    fallbackCurrencies.add(sourceCode);
+                    fallbackCurrencies.add(destinationCode);
+                    Rational rate = reduce(quote.getExchangeRate());
+                    numerators[index] = rate.getP();
+                    denominators[index] = rate.getQ();
+                }
+                continue;
+            }
+            currencyCount = addCurrency(presence, currencies, currencyCount, source);
+            currencyCount = addCurrency(presence, currencies, currencyCount, destination);
+            int key = pairKey(source, destination);
+            int slot = slot(key, capacity - 1);
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                Rational rate = reduce(quote.getExchangeRate());
+                numerators[slot] = rate.getP();
+                denominators[slot] = rate.getQ();
+            }
+        }
+        int length = capacity + fallbackIndexes.size();
+        return new QuoteIndex(
+                presence,
+                Arrays.copyOf(currencies, currencyCount),
+                keys,
+                Arrays.copyOf(numerators, length),
+                Arrays.copyOf(denominators, length),
+                fallbackCurrencies.isEmpty() ? Set.of() : fallbackCurrencies,
+                fallbackIndexes.isEmpty() ? Map.of() : fallbackIndexes
+        );
+    }
+
+    /**
+     * Pack a currency code into an int.
+     *
+     * @param code - 3-letter currency code, e.g. "USD"
+     * @return packed code, or -1 if the code is not a 3-letter latin uppercase code
+     */
+    public static int packCode(String code) {
+        if (code == null || code.length() != CODE_LENGTH) {
+            return -1;
+        }
+        int packed = 0;
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            char letter = code.charAt(i);
+            if (letter < 'A' || letter > 'Z') {
+                return -1;
+            }
+            packed = (packed << LETTER_BITS) | (letter - 'A' + 1);
+        }
+        return packed;
+    }
+
+    public boolean hasCurrency(String code) {
+        int packed = packCode(code);
+        if (packed < 0) {
+            return code != null && fallbackCurrencies.contains(code);
+        }
+        return isPresent(presence, packed) && Arrays.binarySearch(currencies, packed) >= 0;
+    }
+
+    /**
+     * Find quote by source and destination currency.
+     *
+     * @return index of the quote rate, or -1 if there's no quote for the pair
+     */
+    public int indexOf(String sourceCurrency, String destinationCurrency) {
+        int source = packCode(sourceCurrency);
+        int destination = packCode(destinationCurrency);
+        if (source < 0 || destination < 0) {
+            return findFallback(sourceCurrency, destinationCurrency);
+        }
+        if (!isPresent(presence, source) || !isPresent(presence, destination)) {
+            return -1;
+        }
+        int key = pairKey(source, destination);
+        int slot = slot(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public long getNumerator(int index) {
+        return numerators[index];
+    }
+
+    public long getDenominator(int index) {
+        return denominators[index];
+    }
+
+    private int findFallback(String sourceCurrency, String destinationCurrency) {
+        if (fallbackIndexes.isEmpty() || sourceCurrency == null || destinationCurrency == null) {
+            return -1;
+        }
+        return fallbackIndexes.getOrDefault(fallbackKey(sourceCurrency, destinationCurrency), -1);
+    }
+
+    private static String fallbackKey(String sourceCurrency, String destinationCurrency) {
+        return sourceCurrency + '/' + destinationCurrency;
+    }
+
+    private static Rational reduce(Rational rate) {
+        try {
+            long gcd = ArithmeticUtils.gcd(rate.getP(), rate.getQ());
+            if (gcd == 0) {
+                return rate;
+            }
+            long numerator = rate.getP() / gcd;
+            long denominator = rate.getQ() / gcd;
+            return denominator < 0
+                    ? new Rational(Math.negateExact(numerator), Math.negateExact(denominator))
+                    : new Rational(numerator, denominator);
+        } catch (ArithmeticException ex) {
+            return rate;
+        }
+    }
+
+    private static int addCurrency(long[] presence, int[] currencies, int currencyCount, int code) {
+        if (isPresent(presence, code) && Arrays.binarySearch(currencies, 0, currencyCount, code) >= 0) {
+            return currencyCount;
+        }
+        int bit = code & (PRESENCE_BITS - 1);
+        presence[bit >>> 6] |= 1L << bit;
+        int position = -Arrays.binarySearch(currencies, 0, currencyCount, code) - 1;
+        System.arraycopy(currencies, position, currencies, position + 1, currencyCount - position);
+        currencies[position] = code;
+        return currencyCount + 1;
+    }
+
+    private static boolean isPresent(long[] presence, int code) {
+        if (code < 0) {
+            return false;
+        }
+        int bit = code & (PRESENCE_BITS - 1);
+        return (presence[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    private static int pairKey(int source, int destination) {
+        return (source << CODE_BITS) | destination;
+    }
+
+    private static int slot(int key, int mask) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+}
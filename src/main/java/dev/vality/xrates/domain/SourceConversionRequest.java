@@ -0,0 +1,16 @@
+package dev.vality.xrates.domain;
+
+import dev.vality.xrates.rate.ConversionRequest;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class SourceConversionRequest {
+
+    private final String sourceId;
+    private final ConversionRequest conversionRequest;
+
+}
@@ -1,6 +1,7 @@
 package dev.vality.xrates.endpoint;
 
 import dev.vality.woody.thrift.impl.http.THServiceBuilder;
+import dev.vality.xrates.handler.EventSinkHandler;
 import dev.vality.xrates.rate.EventSinkSrv;
 import lombok.RequiredArgsConstructor;
 
@@ -12,7 +13,7 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class EventSinkEndpoint extends GenericServlet {
 
-    private final EventSinkSrv.Iface processorHandler;
+    private final EventSinkHandler processorHandler;
     private Servlet thriftServlet;
 
     @Override
@@ -0,0 +1,31 @@
+package dev.vality.xrates.endpoint;
+
+import dev.vality.woody.thrift.impl.http.THServiceBuilder;
+import dev.vality.xrates.handler.EventSinkSubscriptionHandler;
+import dev.vality.xrates.rate.EventSinkSrv;
+import lombok.RequiredArgsConstructor;
+
+import javax.servlet.*;
+import javax.servlet.annotation.WebServlet;
+import java.io.IOException;
+
+@WebServlet("/v1/event_sink/subscription")
+@RequiredArgsConstructor
+public class EventSinkSubscriptionEndpoint extends GenericServlet {
+
+    private final EventSinkSubscriptionHandler eventSinkSubscriptionHandler;
+    private Servlet thriftServlet;
+
+    @Override
+    public void init(ServletConfig config) throws ServletException {
+        super.init(config);
+        thriftServlet = new THServiceBuilder()
+                .build(EventSinkSrv.Iface.class, eventSinkSubscriptionHandler);
+    }
+
+    @Override
+    public void service(ServletRequest req, ServletResponse res) throws ServletException, IOException {
+        thriftServlet.service(req, res);
+    }
+
+}
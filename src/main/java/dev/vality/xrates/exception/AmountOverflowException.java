@@ -0,0 +1,27 @@
+package dev.vality.xrates.exception;
+
+public class AmountOverflowException extends RuntimeException {
+
+    public AmountOverflowException() {
+    }
+
+    public AmountOverflowException(String message) {
+        super(message);
+    }
+
+    public AmountOverflowException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public AmountOverflowException(Throwable cause) {
+        super(cause);
+    }
+
+    public AmountOverflowException(
+            String message,
+            Throwable cause,
+            boolean enableSuppression,
+            boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
@@ -0,0 +1,19 @@
+package dev.vality.xrates.exception;
+
+import dev.vality.woody.api.flow.error.WUnavailableResultException;
+
+public class MachinegunUnavailableException extends WUnavailableResultException {
+
+    public MachinegunUnavailableException(String message) {
+        super(message);
+    }
+
+    public MachinegunUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public MachinegunUnavailableException(Throwable cause) {
+        super(cause);
+    }
+
+}
@@ -0,0 +1,38 @@
+package dev.vality.xrates.exchange;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Thread pool shared by provider requests of all sources that are behind, see {@link ConcurrentExchangeProvider}.
+ * <p>
+ * It's not an {@link java.util.concurrent.Executor} itself, so registered as a bean it doesn't replace
+ * the application task executor of spring boot.
+ */
+public class BackfillExecutor implements AutoCloseable {
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final ExecutorService executorService;
+
+    public BackfillExecutor(int parallelism) {
+        this.executorService = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "exchange-provider-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, executorService);
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdownNow();
+    }
+
+}
@@ -0,0 +1,104 @@
+package dev.vality.xrates.exchange;
+
+import dev.vality.xrates.domain.ExchangeRate;
+import dev.vality.xrates.exception.ProviderUnavailableResultException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches rates for many times as concurrent single time requests to the provider, on the shared
+ * {@link BackfillExecutor} and with a limit of requests per second sent to the provider.
+ * Neither cbr nor psb has a request for the full rates of a date range, so this is not a range request.
+ * Single time requests are passed to the provider as is.
+ */
+@Slf4j
+public class ConcurrentExchangeProvider implements ExchangeProvider {
+
+    private final ExchangeProvider exchangeProvider;
+
+    private final BackfillExecutor backfillExecutor;
+
+    private final long requestIntervalNanos;
+
+    private long nextRequestNanos = System.nanoTime();
+
+    public ConcurrentExchangeProvider(
+            ExchangeProvider exchangeProvider,
+            BackfillExecutor backfillExecutor,
+            double requestsPerSecond) {
+        this.exchangeProvider = exchangeProvider;
+        this.backfillExecutor = backfillExecutor;
+        this.requestIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+    }
+
+    @Override
+    public List<ExchangeRate> getExchangeRates(Instant time) throws ProviderUnavailableResultException {
+        return exchangeProvider.getExchangeRates(time);
+    }
+
+    @Override
+    public Map<Instant, List<ExchangeRate>> getExchangeRates(List<Instant> times)
+            throws ProviderUnavailableResultException {
+        if (times.size() <= 1) {
+            return ExchangeProvider.super.getExchangeRates(times);
+        }
+        List<CompletableFuture<List<ExchangeRate>>> requests = new ArrayList<>(times.size());
+        for (Instant time : times) {
+            requests.add(backfillExecutor.supplyAsync(() -> {
+                acquire();
+                return exchangeProvider.getExchangeRates(time);
+            }));
+        }
+
+        Map<Instant, List<ExchangeRate>> ratesByTime = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < times.size(); i++) {
+                try {
+                    ratesByTime.put(times.get(i), requests.get(i).join());
+                } catch (CompletionException ex) {
+                    if (ratesByTime.isEmpty()) {
+                        throw ex.getCause() instanceof RuntimeException
+                                ? (RuntimeException) ex.getCause()
+                                : ex;
+                    }
+                    log.warn("Failed to get exchange rates, returning rates up to it, time='{}', retrieved='{}'",
+                            times.get(i), ratesByTime.size(), ex.getCause());
+                    break;
+                }
+            }
+        } finally {
+            requests.forEach(request -> request.cancel(false));
+        }
+        return ratesByTime;
+    }
+
+    /**
+     * Wait for the next request slot, so requests are spread evenly within a second.
+     */
+    private void acquire() {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long requestNanos = Math.max(nextRequestNanos, now);
+            nextRequestNanos = requestNanos + requestIntervalNanos;
+            waitNanos = requestNanos - now;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new ProviderUnavailableResultException(ex);
+            }
+        }
+    }
+
+}
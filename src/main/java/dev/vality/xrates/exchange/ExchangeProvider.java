@@ -1,13 +1,50 @@
 package dev.vality.xrates.exchange;
 
 import dev.vality.xrates.domain.ExchangeRate;
+import dev.vality.xrates.domain.FetchedExchangeRates;
 import dev.vality.xrates.exception.ProviderUnavailableResultException;
 
 import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public interface ExchangeProvider {
 
     List<ExchangeRate> getExchangeRates(Instant time) throws ProviderUnavailableResultException;
 
+    /**
+     * Get exchange rates along with the way they were obtained, e.g. to tell cached responses apart in metrics.
+     * Providers with a response cache override it, others are always requested.
+     */
+    default FetchedExchangeRates fetchExchangeRates(Instant time) throws ProviderUnavailableResultException {
+        return FetchedExchangeRates.requested(getExchangeRates(time));
+    }
+
+    /**
+     * Get exchange rates for many times at once, e.g. to backfill history of a source.
+     * <p>
+     * Rates are returned for a prefix of the given times, in the same order: if rates for some time
+     * can't be retrieved, rates for later times are not returned either. The call fails only if rates
+     * for the first time can't be retrieved.
+     *
+     * @param times - times in ascending order
+     * @return rates by time
+     */
+    default Map<Instant, List<ExchangeRate>> getExchangeRates(List<Instant> times)
+            throws ProviderUnavailableResultException {
+        Map<Instant, List<ExchangeRate>> ratesByTime = new LinkedHashMap<>();
+        for (Instant time : times) {
+            try {
+                ratesByTime.put(time, getExchangeRates(time));
+            } catch (RuntimeException ex) {
+                if (ratesByTime.isEmpty()) {
+                    throw ex;
+                }
+                break;
+            }
+        }
+        return ratesByTime;
+    }
+
 }
@@ -0,0 +1,132 @@
+package dev.vality.xrates.exchange;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Precomputed interval boundaries of the source, in the same order as machinegun events.
+ * <p>
+ * The first event of the machine covers the interval that starts from the source initial time,
+ * every following event covers the interval that starts at the upper bound of the previous one,
+ * so an event sequence id is the position of its interval in this table (starting from 1).
+ * Boundaries are computed from the cron of the source and stored as epoch milliseconds,
+ * the table is lazily extended as new intervals get published. Until the execution time of the next interval
+ * passes, lookups of later times are answered as not found without computing the schedule again.
+ */
+public class ScheduleTable {
+
+    private static final int INITIAL_CAPACITY = 512;
+
+    private final Source source;
+
+    private volatile Bounds bounds =
+            new Bounds(new long[INITIAL_CAPACITY], new long[INITIAL_CAPACITY], 0, Long.MIN_VALUE);
+
+    public ScheduleTable(Source source) {
+        this.source = source;
+    }
+
+    /**
+     * Find the sequence id of the event whose interval contains the given time.
+     *
+     * @param time - time to look up
+     * @return sequence id of the event, or -1 if interval for that time is not published yet or never existed
+     */
+    public long findSequenceId(Instant time) {
+        long millis = time.toEpochMilli();
+        Bounds current = bounds;
+        if (current.size == 0 || millis >= current.upper[current.size - 1]) {
+            long now = System.currentTimeMillis();
+            if (now < current.nextExecutionTime) {
+                return -1;
+            }
+            current = extend(millis, Instant.ofEpochMilli(now));
+        }
+
+        int index = Arrays.binarySearch(current.lower, 0, current.size, millis);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        if (index < 0 || millis >= current.upper[index]) {
+            return -1;
+        }
+        return index + 1L;
+    }
+
+    public Instant getLowerBound(long sequenceId) {
+        return Instant.ofEpochMilli(bounds.lower[toIndex(sequenceId)]);
+    }
+
+    public Instant getUpperBound(long sequenceId) {
+        return Instant.ofEpochMilli(bounds.upper[toIndex(sequenceId)]);
+    }
+
+    /**
+     * @return count of intervals which execution time has already passed
+     */
+    public int size() {
+        return extend(Long.MAX_VALUE, Instant.now()).size;
+    }
+
+    private int toIndex(long sequenceId) {
+        Bounds current = bounds;
+        if (sequenceId < 1 || sequenceId > current.size) {
+            throw new IllegalArgumentException(String.format("Unknown sequence id, sequenceId='%d'", sequenceId));
+        }
+        return (int) (sequenceId - 1);
+    }
+
+    private synchronized Bounds extend(long millis, Instant now) {
+        Bounds current = bounds;
+        long[] lower = current.lower;
+        long[] upper = current.upper;
+        int size = current.size;
+        long nextExecutionTime = Long.MIN_VALUE;
+
+        while (size == 0 || millis >= upper[size - 1]) {
+            Instant prevUpperBound = size == 0 ? source.getInitialTime() : Instant.ofEpochMilli(upper[size - 1]);
+            Instant executionTime = source.getExecutionTime(prevUpperBound);
+            if (executionTime.isAfter(now)) {
+                nextExecutionTime = executionTime.toEpochMilli();
+                break;
+            }
+            if (size == lower.length) {
+                lower = Arrays.copyOf(lower, size * 2);
+                upper = Arrays.copyOf(upper, size * 2);
+            }
+            CronResolver cronResolver = source.getCronResolver();
+            lower[size] = cronResolver.getExecutionWithDelay(executionTime).toEpochMilli();
+            upper[size] = cronResolver.getNextExecutionWithDelay(executionTime).toEpochMilli();
+            size++;
+        }
+
+        if (size != current.size || nextExecutionTime != current.nextExecutionTime) {
+            current = new Bounds(lower, upper, size, nextExecutionTime);
+            bounds = current;
+        }
+        return current;
+    }
+
+    private static class Bounds {
+
+        private final long[] lower;
+
+        private final long[] upper;
+
+        private final int size;
+
+        /**
+         * Execution time of the first not yet published interval, or {@link Long#MIN_VALUE} if it's unknown.
+         */
+        private final long nextExecutionTime;
+
+        private Bounds(long[] lower, long[] upper, int size, long nextExecutionTime) {
+            this.lower = lower;
+            this.upper = upper;
+            this.size = size;
+            this.nextExecutionTime = nextExecutionTime;
+        }
+
+    }
+
+}
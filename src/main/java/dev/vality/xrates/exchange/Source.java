@@ -7,7 +7,9 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Getter
 @RequiredArgsConstructor
@@ -21,15 +23,14 @@ public class Source {
 
     private final String sourceId;
 
+    private final ScheduleTable scheduleTable = new ScheduleTable(this);
+
     public SourceData getSourceDataFromInitialTime() throws ProviderUnavailableResultException {
         return getSourceData(initialTime);
     }
 
     public SourceData getSourceData(Instant prevUpperBound) throws ProviderUnavailableResultException {
-        Instant executionTime = cronResolver.getLastExecution(prevUpperBound);
-        if (cronResolver.getExecutionWithDelay(executionTime).isBefore(prevUpperBound)) {
-            executionTime = cronResolver.getNextExecution(prevUpperBound);
-        }
+        Instant executionTime = getExecutionTime(prevUpperBound);
 
         Instant lowerBound = cronResolver.getExecutionWithDelay(executionTime);
         Instant upperBound = cronResolver.getNextExecutionWithDelay(executionTime);
@@ -44,4 +45,51 @@ public class Source {
         );
     }
 
+    /**
+     * Get source data of consecutive intervals, starting from the one that follows the given upper bound.
+     * Only intervals whose execution time has already passed are returned, but at least one,
+     * rates of all intervals are requested from the provider at once.
+     *
+     * @param prevUpperBound - upper bound of the last known interval
+     * @param maxCount       - max count of intervals
+     * @param now            - current time
+     * @return source data in order of intervals
+     */
+    public List<SourceData> getSourceData(Instant prevUpperBound, int maxCount, Instant now)
+            throws ProviderUnavailableResultException {
+        List<Instant> executionTimes = new ArrayList<>();
+        List<Instant> lowerBounds = new ArrayList<>();
+        Instant upperBound = prevUpperBound;
+        while (executionTimes.size() < maxCount) {
+            Instant executionTime = getExecutionTime(upperBound);
+            if (!executionTimes.isEmpty() && executionTime.isAfter(now)) {
+                break;
+            }
+            executionTimes.add(executionTime);
+            lowerBounds.add(cronResolver.getExecutionWithDelay(executionTime));
+            upperBound = cronResolver.getNextExecutionWithDelay(executionTime);
+        }
+
+        Map<Instant, List<ExchangeRate>> ratesByTime = exchangeProvider.getExchangeRates(lowerBounds);
+        List<SourceData> sourceData = new ArrayList<>(ratesByTime.size());
+        for (int i = 0; i < executionTimes.size() && ratesByTime.containsKey(lowerBounds.get(i)); i++) {
+            Instant executionTime = executionTimes.get(i);
+            sourceData.add(new SourceData(
+                    lowerBounds.get(i),
+                    cronResolver.getNextExecutionWithDelay(executionTime),
+                    cronResolver.getNextExecution(executionTime),
+                    ratesByTime.get(lowerBounds.get(i))
+            ));
+        }
+        return sourceData;
+    }
+
+    public Instant getExecutionTime(Instant prevUpperBound) {
+        Instant executionTime = cronResolver.getLastExecution(prevUpperBound);
+        if (cronResolver.getExecutionWithDelay(executionTime).isBefore(prevUpperBound)) {
+            executionTime = cronResolver.getNextExecution(prevUpperBound);
+        }
+        return executionTime;
+    }
+
 }
@@ -0,0 +1,99 @@
+package dev.vality.xrates.exchange.impl.provider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request factory of a provider on a pooled Apache HttpClient, so connections to the provider are kept alive
+ * and reused by backfills and by sources of the same provider.
+ * <p>
+ * Connect and read timeouts bound every single wait, the total timeout bounds the whole request: a request
+ * that is still running when it elapses is aborted, so a stalled endpoint can't pin a processor thread.
+ * Responses compressed with gzip or deflate are decoded by the client. Pool usage is published
+ * with the provider name as the {@code httpclient} tag.
+ */
+@Slf4j
+public class PooledRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+    private final String name;
+
+    private final Duration totalTimeout;
+
+    private final ScheduledExecutorService abortScheduler;
+
+    public PooledRequestFactory(
+            String name,
+            int maxConnections,
+            Duration connectTimeout,
+            Duration readTimeout,
+            Duration totalTimeout,
+            Duration idleTimeout,
+            MeterRegistry meterRegistry) {
+        this(name, buildConnectionManager(maxConnections), connectTimeout, readTimeout, totalTimeout, idleTimeout,
+                meterRegistry);
+    }
+
+    private PooledRequestFactory(
+            String name,
+            PoolingHttpClientConnectionManager connectionManager,
+            Duration connectTimeout,
+            Duration readTimeout,
+            Duration totalTimeout,
+            Duration idleTimeout,
+            MeterRegistry meterRegistry) {
+        super(HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout((int) connectTimeout.toMillis())
+                        .setConnectionRequestTimeout((int) connectTimeout.toMillis())
+                        .setSocketTimeout((int) readTimeout.toMillis())
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .build());
+        this.name = name;
+        this.totalTimeout = totalTimeout;
+        this.abortScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-abort-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name).bindTo(meterRegistry);
+    }
+
+    @Override
+    protected void postProcessHttpRequest(HttpUriRequest request) {
+        // abort of a completed request is a no-op, its connection is already released to the pool
+        abortScheduler.schedule(() -> {
+            if (!request.isAborted()) {
+                log.debug("Aborting request on total timeout, provider='{}', uri='{}'", name, request.getURI());
+                request.abort();
+            }
+        }, totalTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        abortScheduler.shutdownNow();
+        super.destroy();
+    }
+
+    private static PoolingHttpClientConnectionManager buildConnectionManager(int maxConnections) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        return connectionManager;
+    }
+
+}
@@ -1,22 +1,22 @@
 package dev.vality.xrates.exchange.impl.provider.cbr;
 
 import dev.vality.xrates.domain.ExchangeRate;
+import dev.vality.xrates.domain.FetchedExchangeRates;
 import dev.vality.xrates.exception.ProviderUnavailableResultException;
 import dev.vality.xrates.exchange.ExchangeProvider;
-import dev.vality.xrates.exchange.impl.provider.cbr.data.CbrExchangeRateData;
+import dev.vality.xrates.store.ProviderResponseCache;
 import lombok.extern.slf4j.Slf4j;
 import org.joda.money.CurrencyUnit;
 import org.springframework.core.NestedRuntimeException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import java.math.BigDecimal;
+import javax.xml.stream.XMLStreamException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 public class CbrExchangeProvider implements ExchangeProvider {
@@ -29,12 +29,18 @@ public class CbrExchangeProvider implements ExchangeProvider {
 
     public static final CurrencyUnit DESTINATION_CURRENCY_UNIT = CurrencyUnit.of("RUB");
 
+    public static final String PROVIDER_NAME = "cbr";
+
     private final String url;
 
     private final ZoneId timezone;
 
     private final RestTemplate restTemplate;
 
+    private final ProviderResponseCache responseCache;
+
+    private final CbrResponseParser responseParser = new CbrResponseParser();
+
     public CbrExchangeProvider(RestTemplate restTemplate) {
         this(DEFAULT_ENDPOINT, restTemplate);
     }
@@ -44,39 +50,58 @@ public class CbrExchangeProvider implements ExchangeProvider {
     }
 
     public CbrExchangeProvider(String url, ZoneId timezone, RestTemplate restTemplate) {
+        this(url, timezone, restTemplate, ProviderResponseCache.DISABLED);
+    }
+
+    public CbrExchangeProvider(
+            String url,
+            ZoneId timezone,
+            RestTemplate restTemplate,
+            ProviderResponseCache responseCache) {
         this.url = url;
         this.timezone = timezone;
         this.restTemplate = restTemplate;
+        this.responseCache = responseCache;
     }
 
     @Override
     public List<ExchangeRate> getExchangeRates(Instant time) {
+        return fetchExchangeRates(time).getExchangeRates();
+    }
+
+    @Override
+    public FetchedExchangeRates fetchExchangeRates(Instant time) {
         log.info("Trying to get exchange rates from cbr endpoint, url='{}', time='{}'", url, time);
         LocalDate date = time.atZone(timezone).toLocalDate();
 
-        CbrExchangeRateData cbrExchangeRateData = request(buildUrl(url, date));
-        validateResponse(cbrExchangeRateData);
-
-        List<ExchangeRate> exchangeRates = cbrExchangeRateData.getCurrencies().stream()
-                .map(
-                        currency -> new ExchangeRate(
-                                CurrencyUnit.of(currency.getCharCode()),
-                                DESTINATION_CURRENCY_UNIT,
-                                currency.getValue().divide(BigDecimal.valueOf(currency.getNominal()))
-                        )
-                ).collect(Collectors.toList());
+        String requestUrl = buildUrl(url, date);
+        byte[] cachedResponse = responseCache.find(PROVIDER_NAME, null, date);
+        byte[] response = cachedResponse != null ? cachedResponse : request(requestUrl);
+        List<ExchangeRate> exchangeRates = parse(response, requestUrl);
+        validateResponse(exchangeRates);
+        if (cachedResponse == null && isFinal(date)) {
+            responseCache.put(PROVIDER_NAME, null, date, response);
+        }
+
         log.info(
                 "Exchange rates from cbr have been retrieved, url='{}', time='{}', exchangeRates='{}'",
                 url,
                 time,
                 exchangeRates
         );
-        return exchangeRates;
+        return new FetchedExchangeRates(exchangeRates, cachedResponse != null);
     }
 
-    private CbrExchangeRateData request(String url) {
+    private byte[] request(String url) {
         try {
-            return restTemplate.getForObject(url, CbrExchangeRateData.class);
+            byte[] response = restTemplate.getForObject(url, byte[].class);
+            if (response == null) {
+                throw new ProviderUnavailableResultException(String.format(
+                        "Empty response from cbr endpoint, url='%s'",
+                        url
+                ));
+            }
+            return response;
         } catch (NestedRuntimeException ex) {
             throw new ProviderUnavailableResultException(String.format(
                     "Failed to get data from cbr endpoint, url='%s'",
@@ -85,6 +110,24 @@ public class CbrExchangeProvider implements ExchangeProvider {
         }
     }
 
+    private List<ExchangeRate> parse(byte[] response, String url) {
+        try {
+            return responseParser.parse(response);
+        } catch (XMLStreamException ex) {
+            throw new ProviderUnavailableResultException(String.format(
+                    "Failed to parse data from cbr endpoint, url='%s'",
+                    url
+            ), ex);
+        }
+    }
+
+    /**
+     * Rates of past dates are never republished, so their responses can be cached.
+     */
+    private boolean isFinal(LocalDate date) {
+        return date.isBefore(LocalDate.now(timezone));
+    }
+
     private String buildUrl(String endpoint, LocalDate date) {
         return UriComponentsBuilder
                 .fromUriString(endpoint)
@@ -93,8 +136,8 @@ public class CbrExchangeProvider implements ExchangeProvider {
                 .toUriString();
     }
 
-    private void validateResponse(CbrExchangeRateData cbrExchangeRateData) {
-        if (cbrExchangeRateData.getCurrencies() == null || cbrExchangeRateData.getCurrencies().isEmpty()) {
+    private void validateResponse(List<ExchangeRate> exchangeRates) {
+        if (exchangeRates.isEmpty()) {
             throw new ProviderUnavailableResultException("Empty currency list in cbr response");
         }
     }
@@ -0,0 +1,166 @@
+package dev.vality.xrates.exchange.impl.provider.cbr;
+
+import dev.vality.xrates.domain.ExchangeRate;
+import org.joda.money.CurrencyUnit;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser of {@code XML_daily.asp} responses.
+ * <p>
+ * {@code Valute} elements are read straight into exchange rates with a StAX reader, neither a DOM nor beans
+ * are built. Values with comma or dot decimal separator and nominals are decoded from the text buffer
+ * of the reader, a string is only created for the currency code. The document encoding is taken from its prolog.
+ */
+public class CbrResponseParser {
+
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private final XMLInputFactory inputFactory;
+
+    public CbrResponseParser() {
+        this.inputFactory = XMLInputFactory.newFactory();
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * @return rates of all currencies of the response, in RUB per one unit of the currency
+     */
+    public List<ExchangeRate> parse(byte[] response) throws XMLStreamException {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(new ByteArrayInputStream(response));
+        try {
+            List<ExchangeRate> exchangeRates = new ArrayList<>();
+            String charCode = null;
+            BigDecimal value = null;
+            int nominal = 1;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "Valute":
+                            charCode = null;
+                            value = null;
+                            nominal = 1;
+                            break;
+                        case "CharCode":
+                            charCode = reader.getElementText().trim();
+                            break;
+                        case "Nominal":
+                            nextText(reader);
+                            nominal = parseNominal(reader);
+                            break;
+                        case "Value":
+                            nextText(reader);
+                            value = parseDecimal(reader);
+                            break;
+                        default:
+                            break;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "Valute".equals(reader.getLocalName())) {
+                    if (charCode == null || value == null) {
+                        throw new XMLStreamException("Incomplete currency in cbr response", reader.getLocation());
+                    }
+                    exchangeRates.add(new ExchangeRate(
+                            CurrencyUnit.of(charCode),
+                            CbrExchangeProvider.DESTINATION_CURRENCY_UNIT,
+                            value.divide(BigDecimal.valueOf(nominal))
+                    ));
+                }
+            }
+            return exchangeRates;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void nextText(XMLStreamReader reader) throws XMLStreamException {
+        if (reader.next() != XMLStreamConstants.CHARACTERS) {
+            throw new XMLStreamException("Text expected in cbr response", reader.getLocation());
+        }
+    }
+
+    private int parseNominal(XMLStreamReader reader) throws XMLStreamException {
+        char[] chars = reader.getTextCharacters();
+        int start = reader.getTextStart();
+        int end = start + reader.getTextLength();
+        int nominal = 0;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (c < '0' || c > '9' || digits == 9) {
+                throw new XMLStreamException("Invalid nominal in cbr response", reader.getLocation());
+            }
+            nominal = nominal * 10 + (c - '0');
+            digits++;
+        }
+        if (nominal == 0) {
+            throw new XMLStreamException("Invalid nominal in cbr response", reader.getLocation());
+        }
+        return nominal;
+    }
+
+    private BigDecimal parseDecimal(XMLStreamReader reader) throws XMLStreamException {
+        char[] chars = reader.getTextCharacters();
+        int start = reader.getTextStart();
+        int end = start + reader.getTextLength();
+        while (start < end && Character.isWhitespace(chars[start])) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(chars[end - 1])) {
+            end--;
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if ((c == ',' || c == '.') && !fraction) {
+                fraction = true;
+            } else if (c >= '0' && c <= '9') {
+                if (digits == MAX_LONG_DIGITS) {
+                    return parseLongDecimal(reader, chars, start, end);
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                scale += fraction ? 1 : 0;
+            } else {
+                throw new XMLStreamException("Invalid value in cbr response", reader.getLocation());
+            }
+        }
+        if (digits == 0) {
+            throw new XMLStreamException("Invalid value in cbr response", reader.getLocation());
+        }
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * Values that don't fit into long are never published by cbr, but are still decoded correctly.
+     */
+    private BigDecimal parseLongDecimal(XMLStreamReader reader, char[] chars, int start, int end)
+            throws XMLStreamException {
+        char[] decimal = new char[end - start];
+        for (int i = start; i < end; i++) {
+            decimal[i - start] = chars[i] == ',' ? '.' : chars[i];
+        }
+        try {
+            return new BigDecimal(decimal);
+        } catch (NumberFormatException ex) {
+            throw new XMLStreamException("Invalid value in cbr response", reader.getLocation(), ex);
+        }
+    }
+
+}
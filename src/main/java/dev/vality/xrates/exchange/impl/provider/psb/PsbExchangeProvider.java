@@ -1,34 +1,24 @@
 package dev.vality.xrates.exchange.impl.provider.psb;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import dev.vality.adapter.common.secret.VaultSecretService;
 import dev.vality.xrates.domain.ExchangeRate;
+import dev.vality.xrates.domain.FetchedExchangeRates;
 import dev.vality.xrates.exception.ProviderUnavailableResultException;
 import dev.vality.xrates.exchange.ExchangeProvider;
-import dev.vality.xrates.exchange.impl.provider.psb.data.PsbExchangeRootData;
 import dev.vality.xrates.exchange.impl.provider.psb.data.PsbPaymentSystem;
 import dev.vality.xrates.service.SecretService;
+import dev.vality.xrates.store.ProviderResponseCache;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.DecoderException;
-import org.apache.commons.codec.binary.Hex;
-import org.apache.commons.codec.digest.HmacAlgorithms;
 import org.joda.money.CurrencyUnit;
-import org.springframework.core.NestedRuntimeException;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 public class PsbExchangeProvider implements ExchangeProvider {
@@ -41,17 +31,17 @@ public class PsbExchangeProvider implements ExchangeProvider {
 
     public static final CurrencyUnit DESTINATION_CURRENCY_UNIT = CurrencyUnit.of("RUB");
 
-    private final String url;
+    public static final String PROVIDER_NAME = "psb";
 
     private final ZoneId timezone;
 
     private final PsbPaymentSystem psbPaymentSystem;
 
-    private final RestTemplate restTemplate;
+    private final PsbRatesFetcher ratesFetcher;
 
-    private final ObjectMapper objectMapper;
+    private final PsbResponseParser responseParser;
 
-    private final SecretService secretService;
+    private final ProviderResponseCache responseCache;
 
     public PsbExchangeProvider(
             PsbPaymentSystem psbPaymentSystem,
@@ -77,32 +67,50 @@ public class PsbExchangeProvider implements ExchangeProvider {
             RestTemplate restTemplate,
             ObjectMapper objectMapper,
             SecretService secretService) {
-        this.url = url;
+        this(
+                timezone,
+                psbPaymentSystem,
+                new PsbRatesFetcher(url, restTemplate, secretService, List.of(psbPaymentSystem), Duration.ZERO),
+                objectMapper,
+                ProviderResponseCache.DISABLED
+        );
+    }
+
+    public PsbExchangeProvider(
+            ZoneId timezone,
+            PsbPaymentSystem psbPaymentSystem,
+            PsbRatesFetcher ratesFetcher,
+            ObjectMapper objectMapper,
+            ProviderResponseCache responseCache) {
         this.timezone = timezone;
-        this.restTemplate = restTemplate;
-        this.objectMapper = objectMapper;
         this.psbPaymentSystem = psbPaymentSystem;
-        this.secretService = secretService;
+        this.ratesFetcher = ratesFetcher;
+        ratesFetcher.subscribe(psbPaymentSystem);
+        this.responseParser = new PsbResponseParser(objectMapper.getFactory());
+        this.responseCache = responseCache;
     }
 
     @Override
     public List<ExchangeRate> getExchangeRates(Instant time) {
+        return fetchExchangeRates(time).getExchangeRates();
+    }
+
+    @Override
+    public FetchedExchangeRates fetchExchangeRates(Instant time) {
+        String url = ratesFetcher.getUrl();
         log.info("Trying to get exchange rates from psb endpoint, url='{}', time='{}'", url, time);
         LocalDate date = time.atZone(timezone).toLocalDate();
         String paymentSystem = psbPaymentSystem.getValue();
-        String terminalId = secretService.getTerminalId(paymentSystem);
-        String secretKey = secretService.getSecretKey(paymentSystem);
 
-        PsbExchangeRootData psbExchangeRootData = request(buildUrl(url, terminalId, secretKey, date));
-        validateResponse(psbExchangeRootData);
+        byte[] cachedResponse = responseCache.find(PROVIDER_NAME, paymentSystem, date);
+        byte[] response = cachedResponse != null ? cachedResponse : ratesFetcher.fetch(date, psbPaymentSystem);
+        PsbResponseParser.Result result = parse(response, paymentSystem, url);
+        validateResponse(result);
+        if (cachedResponse == null && isFinal(date)) {
+            responseCache.put(PROVIDER_NAME, paymentSystem, date, response);
+        }
 
-        List<ExchangeRate> exchangeRates = psbExchangeRootData.getRates().stream()
-                .filter(currency -> paymentSystem.equals(currency.getIps()))
-                .map(currency -> new ExchangeRate(
-                        CurrencyUnit.of(currency.getCurrencyCode()),
-                        DESTINATION_CURRENCY_UNIT,
-                        currency.getValue()
-                )).collect(Collectors.toList());
+        List<ExchangeRate> exchangeRates = result.getExchangeRates();
 
         log.info(
                 "Exchange rates from psb have been retrieved, url='{}', time='{}', exchangeRates='{}'",
@@ -110,61 +118,35 @@ public class PsbExchangeProvider implements ExchangeProvider {
                 time,
                 exchangeRates
         );
-        return exchangeRates;
+        return new FetchedExchangeRates(exchangeRates, cachedResponse != null);
     }
 
-    private PsbExchangeRootData request(String url) {
+    private PsbResponseParser.Result parse(byte[] response, String paymentSystem, String url) {
         try {
-            return objectMapper.readValue(restTemplate.getForObject(url, String.class), PsbExchangeRootData.class);
-        } catch (IOException | NestedRuntimeException ex) {
+            return responseParser.parse(response, paymentSystem);
+        } catch (IOException ex) {
             throw new ProviderUnavailableResultException(String.format(
-                    "Failed to get data from psb endpoint, url='%s'",
+                    "Failed to parse data from psb endpoint, url='%s'",
                     url
             ), ex);
         }
     }
 
-    private String buildUrl(String endpoint, String terminalId, String secretKey, LocalDate date) {
-        return UriComponentsBuilder
-                .fromUriString(endpoint)
-                .queryParam("TERMINAL", terminalId)
-                .queryParam("DATE", date.format(DATE_TIME_FORMATTER))
-                .queryParam("P_SIGN", buildSign(terminalId, date.format(DATE_TIME_FORMATTER), secretKey))
-                .build()
-                .toUriString();
-    }
-
-    private String buildSign(String terminalId, String date, String secretKey) {
-        try {
-            SecretKeySpec keySpec = new SecretKeySpec(Hex.decodeHex(secretKey), HmacAlgorithms.HMAC_SHA_1.getName());
-            Mac mac = Mac.getInstance(HmacAlgorithms.HMAC_SHA_1.getName());
-            mac.init(keySpec);
-
-            return Hex.encodeHexString(
-                    mac.doFinal(prepareDataForSign(terminalId, date).getBytes(StandardCharsets.UTF_8))
-            );
-        } catch (NoSuchAlgorithmException | InvalidKeyException | DecoderException ex) {
-            throw new ProviderUnavailableResultException(ex);
-        }
-    }
-
-    private String prepareDataForSign(String... parameters) {
-        StringBuilder sb = new StringBuilder();
-        for (String parameter : parameters) {
-            sb.append(parameter.length());
-            sb.append(parameter);
-        }
-        return sb.toString();
+    /**
+     * Rates of past dates are never republished, so their responses can be cached.
+     */
+    private boolean isFinal(LocalDate date) {
+        return date.isBefore(LocalDate.now(timezone));
     }
 
-    private void validateResponse(PsbExchangeRootData psbExchangeRootData) {
-        if (psbExchangeRootData.hasError()) {
+    private void validateResponse(PsbResponseParser.Result result) {
+        if (result.hasError()) {
             throw new ProviderUnavailableResultException(String.format(
                     "Error in psb response, error='%s'",
-                    psbExchangeRootData.getError()
+                    result.getError()
             ));
         }
-        if (psbExchangeRootData.getRates() == null || psbExchangeRootData.getRates().isEmpty()) {
+        if (result.getRateCount() == 0) {
             throw new ProviderUnavailableResultException("Empty currency list in psb response");
         }
     }
@@ -0,0 +1,196 @@
+package dev.vality.xrates.exchange.impl.provider.psb;
+
+import dev.vality.xrates.exception.ProviderUnavailableResultException;
+import dev.vality.xrates.exchange.impl.provider.psb.data.PsbPaymentSystem;
+import dev.vality.xrates.service.SecretService;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedRuntimeException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Fetches psb responses once per date for all subscribed payment systems.
+ * <p>
+ * A response of {@code curr_rate_by_date} contains rates of every payment system, so the first subscriber
+ * asking for a date sends the request, signed with its own terminal, and the response is held until every
+ * other subscriber has taken it too. Subscribers asking while the request is running wait for it. A subscriber
+ * asking for the same date again gets a new response, e.g. on retry. Responses that were not taken by all
+ * subscribers within the hold time are dropped.
+ * <p>
+ * Every provider built on the fetcher subscribes its payment system, so subscribers are the configured psb sources.
+ */
+@Slf4j
+public class PsbRatesFetcher {
+
+    @Getter
+    private final String url;
+
+    private final RestTemplate restTemplate;
+
+    private final SecretService secretService;
+
+    private final Set<PsbPaymentSystem> subscribers;
+
+    private final long holdTimeNanos;
+
+    private final PsbSigner signer = new PsbSigner();
+
+    private final Map<LocalDate, Fetch> fetches = new HashMap<>();
+
+    public PsbRatesFetcher(
+            String url,
+            RestTemplate restTemplate,
+            SecretService secretService,
+            Collection<PsbPaymentSystem> subscribers,
+            Duration holdTime) {
+        this.url = url;
+        this.restTemplate = restTemplate;
+        this.secretService = secretService;
+        this.subscribers = EnumSet.noneOf(PsbPaymentSystem.class);
+        this.subscribers.addAll(subscribers);
+        this.holdTimeNanos = holdTime.toNanos();
+    }
+
+    public void subscribe(PsbPaymentSystem paymentSystem) {
+        synchronized (fetches) {
+            subscribers.add(paymentSystem);
+        }
+    }
+
+    /**
+     * @return raw response with rates of all payment systems for the date
+     */
+    public byte[] fetch(LocalDate date, PsbPaymentSystem paymentSystem) {
+        Fetch fetch;
+        boolean owner;
+        synchronized (fetches) {
+            if (!subscribers.contains(paymentSystem)) {
+                throw new IllegalArgumentException(String.format(
+                        "Payment system is not subscribed, paymentSystem='%s'",
+                        paymentSystem
+                ));
+            }
+            long now = System.nanoTime();
+            evictExpired(now);
+            fetch = fetches.get(date);
+            owner = fetch == null || !fetch.pending.contains(paymentSystem);
+            if (owner) {
+                fetch = new Fetch(EnumSet.copyOf(subscribers), now);
+                fetches.put(date, fetch);
+            }
+            fetch.pending.remove(paymentSystem);
+            if (fetch.pending.isEmpty()) {
+                fetches.remove(date, fetch);
+            }
+        }
+
+        if (owner) {
+            try {
+                fetch.response.complete(request(buildUrl(paymentSystem, date)));
+            } catch (RuntimeException ex) {
+                synchronized (fetches) {
+                    fetches.remove(date, fetch);
+                }
+                fetch.response.completeExceptionally(ex);
+                throw ex;
+            }
+        } else {
+            log.debug("Psb response is shared, date='{}', paymentSystem='{}'", date, paymentSystem);
+        }
+        return join(fetch.response);
+    }
+
+    /**
+     * @return count of responses held for subscribers that haven't taken them yet
+     */
+    public int heldCount() {
+        synchronized (fetches) {
+            return fetches.size();
+        }
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Fetch> iterator = fetches.values().iterator();
+        while (iterator.hasNext()) {
+            Fetch fetch = iterator.next();
+            if (now - fetch.createdAt > holdTimeNanos) {
+                log.debug("Psb response haven't been taken by all subscribers, pending='{}'", fetch.pending);
+                iterator.remove();
+            }
+        }
+    }
+
+    private byte[] join(CompletableFuture<byte[]> response) {
+        try {
+            return response.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new ProviderUnavailableResultException(ex.getCause());
+        }
+    }
+
+    private byte[] request(String url) {
+        try {
+            byte[] response = restTemplate.getForObject(url, byte[].class);
+            if (response == null) {
+                throw new ProviderUnavailableResultException(String.format(
+                        "Empty response from psb endpoint, url='%s'",
+                        url
+                ));
+            }
+            return response;
+        } catch (NestedRuntimeException ex) {
+            throw new ProviderUnavailableResultException(String.format(
+                    "Failed to get data from psb endpoint, url='%s'",
+                    url
+            ), ex);
+        }
+    }
+
+    private String buildUrl(PsbPaymentSystem paymentSystem, LocalDate date) {
+        String terminalId = secretService.getTerminalId(paymentSystem.getValue());
+        String secretKey = secretService.getSecretKey(paymentSystem.getValue());
+        return UriComponentsBuilder
+                .fromUriString(url)
+                .queryParam("TERMINAL", terminalId)
+                .queryParam("DATE", date.format(PsbExchangeProvider.DATE_TIME_FORMATTER))
+                .queryParam("P_SIGN", signer.sign(
+                        terminalId,
+                        secretKey,
+                        terminalId,
+                        date.format(PsbExchangeProvider.DATE_TIME_FORMATTER)
+                ))
+                .build()
+                .toUriString();
+    }
+
+    private static class Fetch {
+
+        private final Set<PsbPaymentSystem> pending;
+
+        private final long createdAt;
+
+        private final CompletableFuture<byte[]> response = new CompletableFuture<>();
+
+        private Fetch(Set<PsbPaymentSystem> pending, long createdAt) {
+            this.pending = pending;
+            this.createdAt = createdAt;
+        }
+
+    }
+
+}
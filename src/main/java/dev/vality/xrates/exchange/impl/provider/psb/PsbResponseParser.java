@@ -0,0 +1,134 @@
+package dev.vality.xrates.exchange.impl.provider.psb;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import dev.vality.xrates.domain.ExchangeRate;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.joda.money.CurrencyUnit;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser of {@code curr_rate_by_date} responses.
+ * <p>
+ * Rates are read token by token straight into exchange rates of a single payment system: once the {@code IPS}
+ * of a rate turns out to be another payment system, the rest of the rate is skipped without decoding,
+ * neither a tree nor beans are built. Buy values, quoted or not, are decoded from the text buffer of the parser.
+ */
+@RequiredArgsConstructor
+public class PsbResponseParser {
+
+    private final JsonFactory jsonFactory;
+
+    public Result parse(byte[] response, String paymentSystem) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(response)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Object expected in psb response");
+            }
+            String error = null;
+            int rateCount = 0;
+            List<ExchangeRate> exchangeRates = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("rates".equals(fieldName) && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        rateCount++;
+                        ExchangeRate exchangeRate = parseRate(parser, paymentSystem);
+                        if (exchangeRate != null) {
+                            exchangeRates.add(exchangeRate);
+                        }
+                    }
+                } else if ("ERROR".equals(fieldName) && token == JsonToken.VALUE_STRING) {
+                    error = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return new Result(error, rateCount, exchangeRates);
+        }
+    }
+
+    /**
+     * @return exchange rate, or null if the rate belongs to another payment system or has none
+     */
+    private ExchangeRate parseRate(JsonParser parser, String paymentSystem) throws IOException {
+        String currencyCode = null;
+        BigDecimal value = null;
+        boolean matched = false;
+        boolean skipped = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            if (skipped) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (fieldName) {
+                case "IPS":
+                    matched = paymentSystem.equals(parser.getText());
+                    skipped = !matched;
+                    break;
+                case "CURR":
+                    currencyCode = parser.getText();
+                    break;
+                case "BUY":
+                    value = parseDecimal(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        if (!matched) {
+            return null;
+        }
+        if (currencyCode == null || value == null) {
+            throw new IOException("Incomplete rate in psb response");
+        }
+        return new ExchangeRate(CurrencyUnit.of(currencyCode), PsbExchangeProvider.DESTINATION_CURRENCY_UNIT, value);
+    }
+
+    private BigDecimal parseDecimal(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDecimalValue();
+        }
+        if (token != JsonToken.VALUE_STRING) {
+            throw new IOException("Invalid buy value in psb response");
+        }
+        try {
+            return new BigDecimal(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        } catch (NumberFormatException ex) {
+            throw new IOException("Invalid buy value in psb response", ex);
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Result {
+
+        /**
+         * Error returned instead of rates, or null.
+         */
+        private final String error;
+
+        /**
+         * Count of rates of all payment systems in the response.
+         */
+        private final int rateCount;
+
+        private final List<ExchangeRate> exchangeRates;
+
+        public boolean hasError() {
+            return error != null && !error.isEmpty();
+        }
+
+    }
+
+}
@@ -0,0 +1,75 @@
+package dev.vality.xrates.exchange.impl.provider.psb;
+
+import dev.vality.xrates.exception.ProviderUnavailableResultException;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.HmacAlgorithms;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Signs psb requests with HMAC-SHA1 of the terminal secret key.
+ * <p>
+ * The key of every terminal is decoded and a {@link Mac} is initialised with it once, signing uses a clone
+ * of that prototype. The prototype is rebuilt when the secret key of the terminal changes.
+ * If the security provider can't clone a {@link Mac}, a new one is initialised for every signature.
+ */
+public class PsbSigner {
+
+    private final Map<String, MacPrototype> prototypes = new ConcurrentHashMap<>();
+
+    public String sign(String terminalId, String secretKey, String... parameters) {
+        MacPrototype prototype = prototypes.get(terminalId);
+        if (prototype == null || !prototype.secretKey.equals(secretKey)) {
+            prototype = new MacPrototype(secretKey, initMac(secretKey));
+            prototypes.put(terminalId, prototype);
+        }
+        return Hex.encodeHexString(
+                newMac(prototype).doFinal(prepareDataForSign(parameters).getBytes(StandardCharsets.UTF_8))
+        );
+    }
+
+    private Mac newMac(MacPrototype prototype) {
+        try {
+            return (Mac) prototype.mac.clone();
+        } catch (CloneNotSupportedException ex) {
+            return initMac(prototype.secretKey);
+        }
+    }
+
+    private Mac initMac(String secretKey) {
+        try {
+            SecretKeySpec keySpec = new SecretKeySpec(Hex.decodeHex(secretKey), HmacAlgorithms.HMAC_SHA_1.getName());
+            Mac mac = Mac.getInstance(HmacAlgorithms.HMAC_SHA_1.getName());
+            mac.init(keySpec);
+            return mac;
+        } catch (GeneralSecurityException | DecoderException ex) {
+            throw new ProviderUnavailableResultException(ex);
+        }
+    }
+
+    private String prepareDataForSign(String... parameters) {
+        StringBuilder sb = new StringBuilder();
+        for (String parameter : parameters) {
+            sb.append(parameter.length());
+            sb.append(parameter);
+        }
+        return sb.toString();
+    }
+
+    @RequiredArgsConstructor
+    private static class MacPrototype {
+
+        private final String secretKey;
+
+        private final Mac mac;
+
+    }
+
+}
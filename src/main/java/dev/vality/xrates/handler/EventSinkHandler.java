@@ -2,42 +2,100 @@ package dev.vality.xrates.handler;
 
 import dev.vality.machinarium.client.EventSinkClient;
 import dev.vality.machinarium.domain.TSinkEvent;
+import dev.vality.xrates.metrics.HandlerMetrics;
+import dev.vality.xrates.metrics.MeteredProxy;
 import dev.vality.xrates.rate.*;
+import dev.vality.xrates.service.EventSinkTailer;
 import dev.vality.xrates.util.ProtoUtil;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.thrift.TException;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * Event sink for polling consumers, a call returns right away even if there are no events yet.
+ * Consumers that want to wait for new events use {@link EventSinkSubscriptionHandler} instead.
+ */
 @Slf4j
 @Component
 public class EventSinkHandler implements EventSinkSrv.Iface {
 
+    private static final String HANDLER_NAME = "event_sink";
+
     private final EventSinkClient<Change> eventSinkClient;
 
-    public EventSinkHandler(EventSinkClient<Change> eventSinkClient) {
+    private final EventSinkTailer eventSinkTailer;
+
+    private final HandlerMetrics handlerMetrics;
+
+    public EventSinkHandler(
+            EventSinkClient<Change> eventSinkClient,
+            EventSinkTailer eventSinkTailer,
+            HandlerMetrics handlerMetrics) {
         this.eventSinkClient = eventSinkClient;
+        this.eventSinkTailer = eventSinkTailer;
+        this.handlerMetrics = handlerMetrics;
     }
 
     @Override
     public List<SinkEvent> getEvents(EventRange eventRange) throws TException {
-        List<TSinkEvent<Change>> events;
-        if (eventRange.isSetAfter()) {
-            events = eventSinkClient.getEvents(eventRange.getLimit(), eventRange.getAfter());
-        } else {
-            events = eventSinkClient.getEvents(eventRange.getLimit());
-        }
-
-        return events.stream()
-                .map(ProtoUtil::toSinkEvent)
-                .collect(Collectors.toList());
+        return getEvents(eventRange, Duration.ZERO, HANDLER_NAME);
     }
 
     @Override
     public long getLastEventID() throws NoLastEvent, TException {
-        return eventSinkClient.getLastEventId().orElse(Long.MIN_VALUE);
+        return getLastEventID(HANDLER_NAME);
+    }
+
+    List<SinkEvent> getEvents(EventRange eventRange, Duration longPollTimeout, String handlerName) {
+        Timer.Sample sample = handlerMetrics.start();
+        String outcome = MeteredProxy.OUTCOME_SUCCESS;
+        try {
+            if (eventRange.isSetAfter()) {
+                List<SinkEvent> tailEvents = eventSinkTailer.awaitEventsAfter(
+                        eventRange.getAfter(),
+                        eventRange.getLimit(),
+                        longPollTimeout
+                );
+                if (tailEvents != null) {
+                    return tailEvents;
+                }
+            }
+
+            List<TSinkEvent<Change>> events;
+            if (eventRange.isSetAfter()) {
+                events = eventSinkClient.getEvents(eventRange.getLimit(), eventRange.getAfter());
+            } else {
+                events = eventSinkClient.getEvents(eventRange.getLimit());
+            }
+
+            return events.stream()
+                    .map(ProtoUtil::toSinkEvent)
+                    .collect(Collectors.toList());
+        } catch (RuntimeException ex) {
+            outcome = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            handlerMetrics.stop(sample, handlerName, "getEvents", null, outcome);
+        }
+    }
+
+    long getLastEventID(String handlerName) {
+        Timer.Sample sample = handlerMetrics.start();
+        String outcome = MeteredProxy.OUTCOME_SUCCESS;
+        try {
+            return eventSinkTailer.findLastEventId()
+                    .orElseGet(() -> eventSinkClient.getLastEventId().orElse(Long.MIN_VALUE));
+        } catch (RuntimeException ex) {
+            outcome = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            handlerMetrics.stop(sample, handlerName, "getLastEventID", null, outcome);
+        }
     }
 
 }
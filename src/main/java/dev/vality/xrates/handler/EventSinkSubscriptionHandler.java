@@ -0,0 +1,60 @@
+package dev.vality.xrates.handler;
+
+import dev.vality.xrates.rate.EventRange;
+import dev.vality.xrates.rate.EventSinkSrv;
+import dev.vality.xrates.rate.NoLastEvent;
+import dev.vality.xrates.rate.SinkEvent;
+import org.apache.thrift.TException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Event sink for consumers subscribed to new events: a call with no events after the given id waits for them
+ * up to the long poll timeout instead of returning an empty list. Waiting is served by the event sink tailer,
+ * without the tailer calls return right away as in {@link EventSinkHandler}.
+ * <p>
+ * A waiting call holds a request thread, so at most {@code service.eventSink.maxWaiters} calls wait at once,
+ * calls above the limit return right away.
+ */
+@Component
+public class EventSinkSubscriptionHandler implements EventSinkSrv.Iface {
+
+    private static final String HANDLER_NAME = "event_sink_subscription";
+
+    private final EventSinkHandler eventSinkHandler;
+
+    private final Duration longPollTimeout;
+
+    private final Semaphore waiters;
+
+    public EventSinkSubscriptionHandler(
+            EventSinkHandler eventSinkHandler,
+            @Value("${service.eventSink.longPollTimeout}") Duration longPollTimeout,
+            @Value("${service.eventSink.maxWaiters}") int maxWaiters) {
+        this.eventSinkHandler = eventSinkHandler;
+        this.longPollTimeout = longPollTimeout;
+        this.waiters = new Semaphore(maxWaiters);
+    }
+
+    @Override
+    public List<SinkEvent> getEvents(EventRange eventRange) throws TException {
+        if (!waiters.tryAcquire()) {
+            return eventSinkHandler.getEvents(eventRange, Duration.ZERO, HANDLER_NAME);
+        }
+        try {
+            return eventSinkHandler.getEvents(eventRange, longPollTimeout, HANDLER_NAME);
+        } finally {
+            waiters.release();
+        }
+    }
+
+    @Override
+    public long getLastEventID() throws NoLastEvent, TException {
+        return eventSinkHandler.getLastEventID(HANDLER_NAME);
+    }
+
+}
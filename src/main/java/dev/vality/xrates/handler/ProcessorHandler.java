@@ -8,7 +8,9 @@ import dev.vality.machinarium.handler.AbstractProcessorHandler;
 import dev.vality.machinegun.msgpack.Nil;
 import dev.vality.machinegun.msgpack.Value;
 import dev.vality.machinegun.stateproc.ComplexAction;
+import dev.vality.xrates.domain.ChangeSnapshot;
 import dev.vality.xrates.domain.SourceData;
+import dev.vality.xrates.metrics.SourceFreshnessMetrics;
 import dev.vality.xrates.rate.Change;
 import dev.vality.xrates.service.ExchangeRateService;
 import dev.vality.xrates.util.ProtoUtil;
@@ -17,6 +19,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
@@ -24,9 +27,19 @@ public class ProcessorHandler extends AbstractProcessorHandler<Value, Change> {
 
     private final ExchangeRateService exchangeRateService;
 
-    public ProcessorHandler(ExchangeRateService exchangeRateService) {
+    private final SourceFreshnessMetrics sourceFreshnessMetrics;
+
+    private final int backfillBatchSize;
+
+    public ProcessorHandler(
+            ExchangeRateService exchangeRateService,
+            SourceFreshnessMetrics sourceFreshnessMetrics,
+            @org.springframework.beans.factory.annotation.Value("${sources.backfill.batchSize}")
+            int backfillBatchSize) {
         super(Value.class, Change.class);
         this.exchangeRateService = exchangeRateService;
+        this.sourceFreshnessMetrics = sourceFreshnessMetrics;
+        this.backfillBatchSize = backfillBatchSize;
     }
 
     @Override
@@ -37,10 +50,12 @@ public class ProcessorHandler extends AbstractProcessorHandler<Value, Change> {
         log.info("Trying to process signal init, namespace='{}', machineId='{}'", thriftMachine.getNs(), machineId);
 
         SourceData sourceData = exchangeRateService.getExchangeRatesBySourceType(machineId);
+        Change change = ProtoUtil.buildCreatedChange(sourceData);
+        sourceFreshnessMetrics.record(machineId, change);
 
         SignalResultData<Change> signalResultData = new SignalResultData<>(
                 Value.nl(new Nil()),
-                Collections.singletonList(ProtoUtil.buildCreatedChange(sourceData)),
+                Collections.singletonList(change),
                 ProtoUtil.buildComplexActionWithDeadline(sourceData.getNextExecutionTime(),
                         ProtoUtil.buildLastEventHistoryRange())
         );
@@ -63,13 +78,25 @@ public class ProcessorHandler extends AbstractProcessorHandler<Value, Change> {
         if (change == null) {
             throw new IllegalStateException("Failed to process signal timeout because previous changes not found");
         }
-        SourceData sourceData = exchangeRateService.getExchangeRatesBySourceType(ProtoUtil.getUpperBound(change),
-                machineId);
+        ChangeSnapshot snapshot = exchangeRateService.indexChange(machineId, change);
+        // if the machine is behind, all intervals which execution time has passed are emitted in batches,
+        // the deadline of the last one is already in the past then, so the timer fires again right away
+        List<SourceData> sourceData = exchangeRateService.getExchangeRatesBySourceType(
+                snapshot.getUpperBoundInstant(),
+                machineId,
+                backfillBatchSize
+        );
+        SourceData lastSourceData = sourceData.get(sourceData.size() - 1);
+        List<Change> changes = sourceData.stream().map(ProtoUtil::buildCreatedChange).collect(Collectors.toList());
+        // created changes are not stored locally until machinegun commits them, they are stored once read back
+        for (Change createdChange : changes) {
+            sourceFreshnessMetrics.record(machineId, createdChange);
+        }
 
         SignalResultData<Change> signalResultData = new SignalResultData<>(
                 Value.nl(new Nil()),
-                Collections.singletonList(ProtoUtil.buildCreatedChange(sourceData)),
-                ProtoUtil.buildComplexActionWithDeadline(sourceData.getNextExecutionTime(),
+                changes,
+                ProtoUtil.buildComplexActionWithDeadline(lastSourceData.getNextExecutionTime(),
                         ProtoUtil.buildLastEventHistoryRange())
         );
         log.info("Response: {}", signalResultData);
@@ -1,13 +1,21 @@
 package dev.vality.xrates.handler;
 
+import dev.vality.woody.api.flow.error.WErrorDefinition;
+import dev.vality.woody.api.flow.error.WErrorSource;
+import dev.vality.woody.api.flow.error.WErrorType;
+import dev.vality.woody.api.flow.error.WRuntimeException;
 import dev.vality.xrates.base.Rational;
+import dev.vality.xrates.exception.AmountOverflowException;
 import dev.vality.xrates.exception.CurrencyNotFoundException;
 import dev.vality.xrates.exception.QuoteNotFoundException;
+import dev.vality.xrates.exception.UnknownSourceException;
+import dev.vality.xrates.metrics.HandlerMetrics;
+import dev.vality.xrates.metrics.MeteredProxy;
 import dev.vality.xrates.rate.*;
 import dev.vality.xrates.service.ExchangeRateService;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.math3.fraction.BigFraction;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
@@ -17,28 +25,65 @@ import java.time.Instant;
 @RequiredArgsConstructor
 public class RatesHandler implements RatesSrv.Iface {
 
+    public static final String AMOUNT_OVERFLOW = "amount_overflow";
+
+    private static final String HANDLER_NAME = "rates";
+
     private final ExchangeRateService exchangeRateService;
 
+    private final HandlerMetrics handlerMetrics;
+
     @Override
     public ExchangeRateData getExchangeRates(String sourceId, String datetime) throws QuoteNotFound {
+        Timer.Sample sample = handlerMetrics.start();
+        String outcome = MeteredProxy.OUTCOME_SUCCESS;
         try {
-            Change change = exchangeRateService.getChangeByTime(sourceId, Instant.parse(datetime));
-            return change.getCreated().getExchangeRateData();
-        } catch (QuoteNotFoundException ex) {
+            return exchangeRateService.getSnapshotByTime(sourceId, Instant.parse(datetime)).getExchangeRateData();
+        } catch (QuoteNotFoundException | UnknownSourceException ex) {
+            outcome = QuoteNotFound.class.getSimpleName();
             throw new QuoteNotFound();
+        } catch (RuntimeException ex) {
+            outcome = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            handlerMetrics.stop(sample, HANDLER_NAME, "getExchangeRates", sourceId, outcome);
         }
     }
 
     @Override
     public Rational getConvertedAmount(String sourceId, ConversionRequest conversionRequest)
             throws QuoteNotFound, CurrencyNotFound {
+        Timer.Sample sample = handlerMetrics.start();
+        String outcome = MeteredProxy.OUTCOME_SUCCESS;
         try {
-            BigFraction convertedAmount = exchangeRateService.getConvertedAmount(sourceId, conversionRequest);
-            return new Rational(convertedAmount.getNumeratorAsLong(), convertedAmount.getDenominatorAsLong());
-        } catch (QuoteNotFoundException ex) {
+            return exchangeRateService.getConvertedAmount(sourceId, conversionRequest);
+        } catch (QuoteNotFoundException | UnknownSourceException ex) {
+            outcome = QuoteNotFound.class.getSimpleName();
             throw new QuoteNotFound();
         } catch (CurrencyNotFoundException ex) {
+            outcome = CurrencyNotFound.class.getSimpleName();
             throw new CurrencyNotFound();
+        } catch (AmountOverflowException ex) {
+            outcome = AMOUNT_OVERFLOW;
+            log.warn("Converted amount overflows, sourceId='{}', conversionRequest='{}'", sourceId, conversionRequest);
+            throw buildAmountOverflowError(ex);
+        } catch (RuntimeException ex) {
+            outcome = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            handlerMetrics.stop(sample, HANDLER_NAME, "getConvertedAmount", sourceId, outcome);
         }
     }
+
+    /**
+     * There is no declared thrift exception for an amount that doesn't fit into the rational,
+     * so the error is returned as woody error with {@link #AMOUNT_OVERFLOW} reason.
+     */
+    private WRuntimeException buildAmountOverflowError(AmountOverflowException ex) {
+        WErrorDefinition errorDefinition = new WErrorDefinition(WErrorSource.INTERNAL);
+        errorDefinition.setErrorType(WErrorType.UNEXPECTED_ERROR);
+        errorDefinition.setErrorSource(WErrorSource.INTERNAL);
+        errorDefinition.setErrorReason(AMOUNT_OVERFLOW);
+        return new WRuntimeException(ex, errorDefinition);
+    }
 }
@@ -0,0 +1,60 @@
+package dev.vality.xrates.listener;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of the startup warm-up, see {@link WarmUpListener}.
+ * <p>
+ * Stays out of service until warm-up completes, so the instance is not ready to receive traffic
+ * while its caches are cold. A failed warm-up doesn't block readiness, as caches are filled by requests anyway.
+ */
+@Component
+public class WarmUpHealthIndicator implements HealthIndicator {
+
+    private final boolean enabled;
+
+    private final AtomicInteger totalCount = new AtomicInteger();
+
+    private final AtomicInteger loadedCount = new AtomicInteger();
+
+    private volatile boolean completed;
+
+    private volatile Throwable error;
+
+    public WarmUpHealthIndicator(@Value("${service.warmUp.enabled}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Health health() {
+        if (!enabled) {
+            return Health.up().withDetail("enabled", false).build();
+        }
+        Health.Builder builder = completed ? Health.up() : Health.outOfService();
+        builder.withDetail("loaded", loadedCount.get())
+                .withDetail("total", totalCount.get());
+        if (error != null) {
+            builder.withDetail("error", error.toString());
+        }
+        return builder.build();
+    }
+
+    void addTotal(int count) {
+        totalCount.addAndGet(count);
+    }
+
+    void addLoaded(int count) {
+        loadedCount.addAndGet(count);
+    }
+
+    void complete(Throwable error) {
+        this.error = error;
+        this.completed = true;
+    }
+
+}
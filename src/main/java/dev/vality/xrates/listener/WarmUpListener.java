@@ -0,0 +1,180 @@
+package dev.vality.xrates.listener;
+
+import dev.vality.xrates.domain.ChangeSnapshot;
+import dev.vality.xrates.domain.SourceConversionRequest;
+import dev.vality.xrates.exception.QuoteNotFoundException;
+import dev.vality.xrates.exchange.ScheduleTable;
+import dev.vality.xrates.exchange.Source;
+import dev.vality.xrates.handler.RatesHandler;
+import dev.vality.xrates.rate.ConversionRequest;
+import dev.vality.xrates.rate.CurrencyNotFound;
+import dev.vality.xrates.rate.Quote;
+import dev.vality.xrates.rate.QuoteNotFound;
+import dev.vality.xrates.service.ExchangeRateService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Preloads the whole history of every source into the change index in background after startup,
+ * with bounded parallelism, and then runs single conversions of the rates handler over the loaded history,
+ * so the conversion path served to clients is compiled by JIT before real traffic arrives.
+ * A page that fails to load is skipped and left to be loaded by requests.
+ * Progress is exposed by {@link WarmUpHealthIndicator}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WarmUpListener implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final ExchangeRateService exchangeRateService;
+
+    private final RatesHandler ratesHandler;
+
+    private final List<Source> sources;
+
+    private final WarmUpHealthIndicator warmUpHealthIndicator;
+
+    @Value("${service.warmUp.enabled}")
+    private boolean enabled;
+
+    @Value("${service.warmUp.parallelism}")
+    private int parallelism;
+
+    @Value("${service.warmUp.pageSize}")
+    private int pageSize;
+
+    @Value("${service.warmUp.conversionCount}")
+    private int conversionCount;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent applicationReadyEvent) {
+        if (enabled) {
+            Thread thread = new Thread(this::warmUp, "warm-up");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void warmUp() {
+        log.info("Warm-up started, sources='{}', parallelism='{}'", sources.size(), parallelism);
+        long start = System.currentTimeMillis();
+        try {
+            preloadChanges();
+            exerciseConversions();
+            warmUpHealthIndicator.complete(null);
+            log.info("Warm-up completed, duration='{}ms'", System.currentTimeMillis() - start);
+        } catch (Exception ex) {
+            warmUpHealthIndicator.complete(ex);
+            log.warn("Warm-up failed, caches will be filled by requests", ex);
+        }
+    }
+
+    private void preloadChanges() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<?>> pages = new ArrayList<>();
+            for (Source source : sources) {
+                int size = source.getScheduleTable().size();
+                warmUpHealthIndicator.addTotal(size);
+                for (long after = 0; after < size; after += pageSize) {
+                    long pageAfter = after;
+                    int limit = (int) Math.min(pageSize, size - after);
+                    pages.add(executorService.submit(() -> preloadPage(source.getSourceId(), pageAfter, limit)));
+                }
+            }
+            for (Future<?> page : pages) {
+                page.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void preloadPage(String sourceId, long after, int limit) {
+        try {
+            warmUpHealthIndicator.addLoaded(exchangeRateService.preloadChanges(sourceId, after, limit));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to preload changes, sourceId='{}', after='{}', limit='{}'", sourceId, after, limit, ex);
+        }
+    }
+
+    private void exerciseConversions() {
+        List<SourceConversionRequest> templates = new ArrayList<>();
+        for (Source source : sources) {
+            int size = source.getScheduleTable().size();
+            if (size == 0) {
+                continue;
+            }
+            Instant datetime = source.getScheduleTable().getLowerBound(size);
+            ChangeSnapshot snapshot;
+            try {
+                snapshot = exchangeRateService.getSnapshotByTime(source.getSourceId(), datetime);
+            } catch (QuoteNotFoundException ex) {
+                continue;
+            } catch (RuntimeException ex) {
+                log.warn("Failed to resolve conversions to warm up, sourceId='{}'", source.getSourceId(), ex);
+                continue;
+            }
+            for (Quote quote : snapshot.getExchangeRateData().getQuotes()) {
+                String sourceCurrency = quote.getSource().getSymbolicCode();
+                String destinationCurrency = quote.getDestination().getSymbolicCode();
+                templates.add(buildRequest(source.getSourceId(), sourceCurrency, destinationCurrency, datetime));
+                templates.add(buildRequest(source.getSourceId(), destinationCurrency, sourceCurrency, datetime));
+            }
+        }
+        if (templates.isEmpty()) {
+            return;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int count = 0; count < conversionCount; count++) {
+            SourceConversionRequest template = templates.get(random.nextInt(templates.size()));
+            ScheduleTable scheduleTable = getSource(template.getSourceId()).getScheduleTable();
+            // a few latest intervals only, so snapshots are mostly resolved from the index
+            int size = scheduleTable.size();
+            Instant datetime = scheduleTable.getLowerBound(size - random.nextInt(Math.min(size, 16)));
+            SourceConversionRequest request = buildRequest(
+                    template.getSourceId(),
+                    template.getConversionRequest().getSource(),
+                    template.getConversionRequest().getDestination(),
+                    datetime
+            );
+            try {
+                ratesHandler.getConvertedAmount(request.getSourceId(), request.getConversionRequest());
+            } catch (QuoteNotFound | CurrencyNotFound ex) {
+                // inverse pairs are not quoted in direct conversion mode
+            }
+        }
+    }
+
+    private Source getSource(String sourceId) {
+        return sources.stream()
+                .filter(source -> source.getSourceId().equals(sourceId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private SourceConversionRequest buildRequest(
+            String sourceId,
+            String sourceCurrency,
+            String destinationCurrency,
+            Instant datetime) {
+        return new SourceConversionRequest(
+                sourceId,
+                new ConversionRequest(sourceCurrency, destinationCurrency, 10000).setDatetime(datetime.toString())
+        );
+    }
+
+}
@@ -0,0 +1,61 @@
+package dev.vality.xrates.machinegun;
+
+import dev.vality.xrates.exception.MachinegunUnavailableException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits count of concurrent calls to machinegun, shared by all machinegun clients.
+ * <p>
+ * When request threads are cheap (e.g. virtual threads), the count of threads no longer bounds the load
+ * sent to machinegun, so calls wait for a permit and fail as unavailable if none is released in time.
+ * Created only with virtual threads enabled, on the fixed thread pool the pool size bounds the load already.
+ */
+public class ConcurrencyLimiter {
+
+    private final Semaphore permits;
+
+    private final long acquireTimeoutNanos;
+
+    public ConcurrencyLimiter(int maxConcurrency, Duration acquireTimeout) {
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T wrap(Class<T> type, T target, String client) {
+        return (T) Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> invoke(target, method, args, client)
+        );
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private Object invoke(Object target, Method method, Object[] args, String client) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(target, args);
+        }
+        if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+            throw new MachinegunUnavailableException(String.format(
+                    "Too many concurrent calls to machinegun, client='%s', method='%s'", client, method.getName()
+            ));
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        } finally {
+            permits.release();
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package dev.vality.xrates.metrics;
+
+import dev.vality.xrates.exchange.Source;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Latency timers of thrift handlers, per handler method and source.
+ * Source ids come from clients, so unknown ones are tagged as "unknown" to keep the tag cardinality bounded.
+ */
+@Component
+public class HandlerMetrics {
+
+    public static final String METRIC_NAME = "xrates.handler.requests";
+
+    public static final String UNKNOWN_SOURCE = "unknown";
+
+    public static final String NO_SOURCE = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Set<String> sourceIds;
+
+    public HandlerMetrics(MeterRegistry meterRegistry, List<Source> sources) {
+        this.meterRegistry = meterRegistry;
+        this.sourceIds = sources.stream()
+                .map(Source::getSourceId)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void stop(Timer.Sample sample, String handler, String method, String sourceId, String outcome) {
+        sample.stop(
+                Timer.builder(METRIC_NAME)
+                        .tag("handler", handler)
+                        .tag("method", method)
+                        .tag("sourceId", toSourceTag(sourceId))
+                        .tag("outcome", outcome)
+                        .register(meterRegistry)
+        );
+    }
+
+    private String toSourceTag(String sourceId) {
+        if (sourceId == null) {
+            return NO_SOURCE;
+        }
+        return sourceIds.contains(sourceId) ? sourceId : UNKNOWN_SOURCE;
+    }
+
+}
@@ -0,0 +1,80 @@
+package dev.vality.xrates.metrics;
+
+import dev.vality.xrates.domain.ExchangeRate;
+import dev.vality.xrates.domain.FetchedExchangeRates;
+import dev.vality.xrates.exception.ProviderUnavailableResultException;
+import dev.vality.xrates.exchange.ExchangeProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timer of provider fetches, tagged by the id of the source they are made for and by outcome:
+ * {@code success} for rates requested from the provider, {@code cached} for rates read from the response cache
+ * and {@code error} for failed fetches.
+ * Failed fetches are tagged with the HTTP status of the provider response, {@code io_error}
+ * or the exception name, successful ones with {@code none}.
+ */
+@RequiredArgsConstructor
+public class MeteredExchangeProvider implements ExchangeProvider {
+
+    public static final String METRIC_NAME = "xrates.provider.requests";
+
+    public static final String OUTCOME_CACHED = "cached";
+
+    public static final String OUTCOME_ERROR = "error";
+
+    public static final String NO_ERROR = "none";
+
+    private final ExchangeProvider exchangeProvider;
+
+    private final String sourceId;
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public List<ExchangeRate> getExchangeRates(Instant time) throws ProviderUnavailableResultException {
+        return fetchExchangeRates(time).getExchangeRates();
+    }
+
+    @Override
+    public FetchedExchangeRates fetchExchangeRates(Instant time) throws ProviderUnavailableResultException {
+        long start = System.nanoTime();
+        String outcome = OUTCOME_ERROR;
+        String error = NO_ERROR;
+        try {
+            FetchedExchangeRates fetchedExchangeRates = exchangeProvider.fetchExchangeRates(time);
+            outcome = fetchedExchangeRates.isCached() ? OUTCOME_CACHED : MeteredProxy.OUTCOME_SUCCESS;
+            return fetchedExchangeRates;
+        } catch (RuntimeException ex) {
+            error = resolveError(ex);
+            throw ex;
+        } finally {
+            Timer.builder(METRIC_NAME)
+                    .tag("source", sourceId)
+                    .tag("outcome", outcome)
+                    .tag("error", error)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private String resolveError(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RestClientResponseException) {
+                return String.valueOf(((RestClientResponseException) cause).getRawStatusCode());
+            }
+            if (cause instanceof ResourceAccessException) {
+                return "io_error";
+            }
+        }
+        return throwable.getClass().getSimpleName();
+    }
+
+}
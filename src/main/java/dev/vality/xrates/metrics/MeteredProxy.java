@@ -0,0 +1,57 @@
+package dev.vality.xrates.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps a client interface, so every call of it is recorded by a timer tagged with method and outcome.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class MeteredProxy {
+
+    public static final String OUTCOME_SUCCESS = "success";
+
+    @SuppressWarnings("unchecked")
+    public static <T> T wrap(Class<T> type, T target, MeterRegistry meterRegistry, String name, String client) {
+        return (T) Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> invoke(target, method, args, meterRegistry, name, client)
+        );
+    }
+
+    private static Object invoke(
+            Object target,
+            Method method,
+            Object[] args,
+            MeterRegistry meterRegistry,
+            String name,
+            String client) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(target, args);
+        }
+        long start = System.nanoTime();
+        String outcome = OUTCOME_SUCCESS;
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            outcome = ex.getCause().getClass().getSimpleName();
+            throw ex.getCause();
+        } finally {
+            Timer.builder(name)
+                    .tag("client", client)
+                    .tag("method", method.getName())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+}
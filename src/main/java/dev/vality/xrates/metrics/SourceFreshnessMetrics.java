@@ -0,0 +1,133 @@
+package dev.vality.xrates.metrics;
+
+import dev.vality.machinarium.client.AutomatonClient;
+import dev.vality.machinarium.domain.TMachineEvent;
+import dev.vality.xrates.exchange.Source;
+import dev.vality.xrates.rate.Change;
+import dev.vality.xrates.util.ProtoUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Freshness lag of every source: now minus the upper bound of the latest created change, in seconds.
+ * A negative lag means that rates for the next interval have already been published.
+ * <p>
+ * Changes are recorded as the processor emits them and as the event sink tailer reads them,
+ * so the lag doesn't depend on which intervals were requested by clients. Until the first change of a source
+ * is recorded the gauge is NaN, and the last change of the source is read from machinegun in background.
+ * The last changes are also re-read from machinegun every {@code service.freshness.refreshInterval},
+ * so replicas that neither process timeouts nor run the tailer don't report an ever-growing lag.
+ */
+@Slf4j
+@Component
+public class SourceFreshnessMetrics implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    public static final String METRIC_NAME = "xrates.source.freshness.lag";
+
+    private final AutomatonClient<dev.vality.machinegun.msgpack.Value, Change> automatonClient;
+
+    private final List<Source> sources;
+
+    private final Duration refreshInterval;
+
+    private final Map<String, AtomicLong> latestUpperBounds = new ConcurrentHashMap<>();
+
+    private final Set<String> loadingSources = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService loader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "source-freshness");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SourceFreshnessMetrics(
+            AutomatonClient<dev.vality.machinegun.msgpack.Value, Change> automatonClient,
+            List<Source> sources,
+            MeterRegistry meterRegistry,
+            @Value("${service.freshness.refreshInterval}") Duration refreshInterval) {
+        this.automatonClient = automatonClient;
+        this.sources = sources;
+        this.refreshInterval = refreshInterval;
+        for (Source source : sources) {
+            String sourceId = source.getSourceId();
+            Gauge.builder(METRIC_NAME, this, metrics -> metrics.getLagSeconds(sourceId))
+                    .tag("sourceId", sourceId)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    public void record(String sourceId, Change change) {
+        if (change == null || !change.isSetCreated()) {
+            return;
+        }
+        long upperBound = ProtoUtil.getUpperBound(change).toEpochMilli();
+        latestUpperBounds.computeIfAbsent(sourceId, key -> new AtomicLong(Long.MIN_VALUE))
+                .accumulateAndGet(upperBound, Math::max);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent applicationReadyEvent) {
+        long refreshMillis = refreshInterval.toMillis();
+        loader.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        loader.shutdownNow();
+    }
+
+    private double getLagSeconds(String sourceId) {
+        AtomicLong latestUpperBound = latestUpperBounds.get(sourceId);
+        if (latestUpperBound == null) {
+            loadLastChange(sourceId);
+            return Double.NaN;
+        }
+        return (System.currentTimeMillis() - latestUpperBound.get()) / 1000.0;
+    }
+
+    private void refresh() {
+        for (Source source : sources) {
+            loadLastChange(source.getSourceId());
+        }
+    }
+
+    private void loadLastChange(String sourceId) {
+        if (!loadingSources.add(sourceId)) {
+            return;
+        }
+        try {
+            loader.execute(() -> {
+                try {
+                    List<TMachineEvent<Change>> events =
+                            automatonClient.getEvents(sourceId, ProtoUtil.buildLastEventHistoryRange());
+                    record(sourceId, ProtoUtil.getLastEvent(events));
+                } catch (RuntimeException ex) {
+                    log.warn("Failed to load last change for freshness lag, sourceId='{}'", sourceId, ex);
+                } finally {
+                    loadingSources.remove(sourceId);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            loadingSources.remove(sourceId);
+        }
+    }
+
+}
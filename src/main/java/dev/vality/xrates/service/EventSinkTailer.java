@@ -0,0 +1,250 @@
+package dev.vality.xrates.service;
+
+import dev.vality.machinarium.client.EventSinkClient;
+import dev.vality.machinarium.domain.TSinkEvent;
+import dev.vality.xrates.metrics.SourceFreshnessMetrics;
+import dev.vality.xrates.rate.Change;
+import dev.vality.xrates.rate.SinkEvent;
+import dev.vality.xrates.util.ProtoUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Follows the head of the machinegun event sink in background and keeps the most recent events in memory,
+ * so polls of consumers near the head of the stream are served without going to machinegun.
+ * <p>
+ * The tailer knows every event after its floor id, events before it are evicted when the buffer is full.
+ * Events and the last event id are served only while the last sync is not older than max staleness,
+ * otherwise callers should go to machinegun. Consumers waiting for new events are all woken up by the sync
+ * that brings them, so any count of long-polling consumers costs a single stream of machinegun calls.
+ */
+@Slf4j
+@Component
+public class EventSinkTailer implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    private final EventSinkClient<Change> eventSinkClient;
+
+    private final SourceFreshnessMetrics sourceFreshnessMetrics;
+
+    private final boolean enabled;
+
+    private final int capacity;
+
+    private final int batchSize;
+
+    private final Duration interval;
+
+    private final long maxStalenessMillis;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "event-sink-tailer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Window window;
+
+    private volatile long syncedAt;
+
+    private volatile CompletableFuture<Void> headChanged = new CompletableFuture<>();
+
+    private boolean failing;
+
+    public EventSinkTailer(
+            EventSinkClient<Change> eventSinkClient,
+            SourceFreshnessMetrics sourceFreshnessMetrics,
+            @Value("${service.eventSink.tailer.enabled}") boolean enabled,
+            @Value("${service.eventSink.tailer.capacity}") int capacity,
+            @Value("${service.eventSink.tailer.batchSize}") int batchSize,
+            @Value("${service.eventSink.tailer.interval}") Duration interval,
+            @Value("${service.eventSink.tailer.maxStaleness}") Duration maxStaleness) {
+        this.eventSinkClient = eventSinkClient;
+        this.sourceFreshnessMetrics = sourceFreshnessMetrics;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.interval = interval;
+        this.maxStalenessMillis = maxStaleness.toMillis();
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent applicationReadyEvent) {
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::syncSafely, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Find events with id greater than the given one.
+     *
+     * @return up to limit events, or null if the tailer doesn't know all events after the given id
+     */
+    public List<SinkEvent> findEventsAfter(long after, int limit) {
+        Window current = getFreshWindow();
+        if (current == null || after < current.floorId) {
+            return null;
+        }
+        int from = Arrays.binarySearch(current.ids, after);
+        from = from >= 0 ? from + 1 : -from - 1;
+        int to = (int) Math.min(current.events.length, (long) from + limit);
+        return List.of(Arrays.copyOfRange(current.events, from, to));
+    }
+
+    /**
+     * Find events with id greater than the given one, waiting for them up to timeout if there are none yet.
+     *
+     * @return up to limit events, empty if none appeared before timeout,
+     * or null if the tailer doesn't know all events after the given id
+     */
+    public List<SinkEvent> awaitEventsAfter(long after, int limit, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            // take the signal before the lookup, so a sync between them is not missed
+            CompletableFuture<Void> signal = headChanged;
+            List<SinkEvent> events = findEventsAfter(after, limit);
+            long remaining = deadline - System.nanoTime();
+            if (events == null || !events.isEmpty() || remaining <= 0) {
+                return events;
+            }
+            try {
+                signal.get(remaining, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                return events;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return events;
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    /**
+     * @return id of the last event ({@link Long#MIN_VALUE} if there are no events),
+     * or empty if the tailer is not in sync with machinegun
+     */
+    public Optional<Long> findLastEventId() {
+        Window current = getFreshWindow();
+        return current == null ? Optional.empty() : Optional.of(current.lastEventId);
+    }
+
+    synchronized void sync() {
+        Window current = window;
+        if (current == null) {
+            Optional<Long> lastEventId = eventSinkClient.getLastEventId();
+            long floorId = lastEventId.map(id -> Math.max(id - capacity, 0L)).orElse(0L);
+            current = new Window(floorId, lastEventId.orElse(Long.MIN_VALUE), new long[0], new SinkEvent[0]);
+        }
+        while (true) {
+            List<TSinkEvent<Change>> events = eventSinkClient.getEvents(batchSize, current.getHeadId());
+            if (!events.isEmpty()) {
+                current = current.append(events, capacity);
+                for (TSinkEvent<Change> event : events) {
+                    sourceFreshnessMetrics.record(event.getSourceId(), event.getEvent().getData());
+                }
+            }
+            if (events.size() < batchSize) {
+                break;
+            }
+        }
+        long previousHeadId = window == null ? Long.MIN_VALUE : window.getHeadId();
+        window = current;
+        syncedAt = System.currentTimeMillis();
+        if (current.getHeadId() != previousHeadId) {
+            CompletableFuture<Void> signal = headChanged;
+            headChanged = new CompletableFuture<>();
+            signal.complete(null);
+        }
+    }
+
+    private void syncSafely() {
+        try {
+            sync();
+            if (failing) {
+                log.info("Event sink tailer is in sync again, lastEventId='{}'", window.lastEventId);
+                failing = false;
+            }
+        } catch (RuntimeException ex) {
+            if (!failing) {
+                log.warn("Failed to sync event sink tailer, polls will go to machinegun", ex);
+                failing = true;
+            }
+        }
+    }
+
+    private Window getFreshWindow() {
+        Window current = window;
+        if (current == null || System.currentTimeMillis() - syncedAt > maxStalenessMillis) {
+            return null;
+        }
+        return current;
+    }
+
+    /**
+     * Immutable view of the tail of the event sink, replaced on every sync.
+     */
+    private static class Window {
+
+        private final long floorId;
+
+        private final long lastEventId;
+
+        private final long[] ids;
+
+        private final SinkEvent[] events;
+
+        private Window(long floorId, long lastEventId, long[] ids, SinkEvent[] events) {
+            this.floorId = floorId;
+            this.lastEventId = lastEventId;
+            this.ids = ids;
+            this.events = events;
+        }
+
+        private long getHeadId() {
+            return ids.length == 0 ? floorId : ids[ids.length - 1];
+        }
+
+        private Window append(List<TSinkEvent<Change>> newEvents, int capacity) {
+            int size = ids.length + newEvents.size();
+            int evicted = Math.max(size - capacity, 0);
+            long[] newIds = new long[size - evicted];
+            SinkEvent[] newSinkEvents = new SinkEvent[size - evicted];
+            long newFloorId = floorId;
+            int position = 0;
+            for (int i = 0; i < size; i++) {
+                boolean isNew = i >= ids.length;
+                long id = isNew ? newEvents.get(i - ids.length).getId() : ids[i];
+                if (i < evicted) {
+                    newFloorId = id;
+                    continue;
+                }
+                newIds[position] = id;
+                newSinkEvents[position] = isNew ? ProtoUtil.toSinkEvent(newEvents.get(i - ids.length)) : events[i];
+                position++;
+            }
+            return new Window(newFloorId, newIds[newIds.length - 1], newIds, newSinkEvents);
+        }
+
+    }
+
+}
@@ -1,26 +1,44 @@
 package dev.vality.xrates.service;
 
 import dev.vality.machinarium.client.AutomatonClient;
+import dev.vality.machinarium.domain.TMachineEvent;
 import dev.vality.machinarium.exception.MachineAlreadyExistsException;
 import dev.vality.machinegun.msgpack.Nil;
-import dev.vality.machinegun.msgpack.Value;
 import dev.vality.woody.api.flow.error.WRuntimeException;
+import dev.vality.xrates.base.Rational;
+import dev.vality.xrates.cache.ChangeIndex;
+import dev.vality.xrates.cache.NegativeCache;
+import dev.vality.xrates.cache.SingleFlight;
+import dev.vality.xrates.domain.ChangeSnapshot;
+import dev.vality.xrates.domain.ConversionMode;
+import dev.vality.xrates.domain.ConversionResult;
+import dev.vality.xrates.domain.QuoteIndex;
+import dev.vality.xrates.domain.SourceConversionRequest;
 import dev.vality.xrates.domain.SourceData;
+import dev.vality.xrates.exception.AmountOverflowException;
 import dev.vality.xrates.exception.CurrencyNotFoundException;
+import dev.vality.xrates.exception.ProviderUnavailableResultException;
 import dev.vality.xrates.exception.QuoteNotFoundException;
 import dev.vality.xrates.exception.UnknownSourceException;
+import dev.vality.xrates.exchange.ScheduleTable;
 import dev.vality.xrates.exchange.Source;
 import dev.vality.xrates.rate.Change;
 import dev.vality.xrates.rate.ConversionRequest;
-import dev.vality.xrates.rate.Quote;
+import dev.vality.xrates.store.ChangeStore;
 import dev.vality.xrates.util.ProtoUtil;
+import dev.vality.xrates.util.RationalUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.math3.fraction.BigFraction;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,15 +47,29 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class ExchangeRateService {
 
-    private final AutomatonClient<Value, Change> automatonClient;
+    private final AutomatonClient<dev.vality.machinegun.msgpack.Value, Change> automatonClient;
 
     private final List<Source> sources;
 
+    private final ChangeIndex changeIndex;
+
+    private final NegativeCache negativeCache;
+
+    private final ChangeStore changeStore;
+
+    private final SingleFlight<String, ChangeSnapshot> changeRequests = new SingleFlight<>();
+
+    @Value("${service.conversion.mode}")
+    private ConversionMode conversionMode;
+
     public void initSources() {
         try {
             for (Source source : sources) {
                 try {
-                    automatonClient.start(source.getSourceId(), Value.nl(new Nil())); //nil?? ok, fine
+                    automatonClient.start(
+                            source.getSourceId(),
+                            dev.vality.machinegun.msgpack.Value.nl(new Nil())
+                    ); //nil?? ok, fine
                     log.info("Source '{}' have been initialized", source.getSourceId());
                 } catch (MachineAlreadyExistsException ex) {
                     log.info("Source '{}' already exists", source.getSourceId());
@@ -64,40 +96,46 @@ public class ExchangeRateService {
         return sourceData;
     }
 
-    public SourceData getExchangeRatesBySourceType(Instant time, String sourceId) {
-        log.info("Trying to get exchange rates, time='{}', sourceId='{}'", time, sourceId);
-        SourceData sourceData = getSourceByType(sourceId).getSourceData(time);
+    /**
+     * Get exchange rates of consecutive intervals following the given time, used to catch up a source
+     * that is behind the present.
+     *
+     * @return source data of at least one and at most maxCount intervals
+     * @throws ProviderUnavailableResultException if rates of the first interval can't be retrieved
+     */
+    public List<SourceData> getExchangeRatesBySourceType(Instant time, String sourceId, int maxCount) {
+        log.info("Trying to get exchange rates, time='{}', sourceId='{}', maxCount='{}'", time, sourceId, maxCount);
+        List<SourceData> sourceData = getSourceByType(sourceId).getSourceData(time, maxCount, Instant.now());
+        if (sourceData.isEmpty()) {
+            throw new ProviderUnavailableResultException(String.format(
+                    "Provider returned no rates, sourceId='%s', time='%s'", sourceId, time
+            ));
+        }
+        SourceData last = sourceData.get(sourceData.size() - 1);
         log.info(
-                "Exchange rates have been retrieved, sourceId='{}', from='{}', to='{}', count='{}', " +
+                "Exchange rates have been retrieved, sourceId='{}', from='{}', to='{}', intervals='{}', " +
                 "nextExecutionTime='{}'",
                 sourceId,
-                sourceData.getLowerBound(),
-                sourceData.getUpperBound(),
-                sourceData.getRates().size(),
-                sourceData.getNextExecutionTime()
+                sourceData.get(0).getLowerBound(),
+                last.getUpperBound(),
+                sourceData.size(),
+                last.getNextExecutionTime()
         );
         return sourceData;
     }
 
-    public BigFraction getConvertedAmount(String sourceId, ConversionRequest conversionRequest) {
-        log.info("Trying to convert amount, sourceId='{}', conversionRequest='{}'", sourceId, conversionRequest);
-        Change change = getChangeByTime(
-                sourceId,
-                Optional.ofNullable(conversionRequest.getDatetime())
-                        .map(Instant::parse)
-                        .orElse(Instant.now())
-        );
-
-        Quote quote = filterQuoteBySourceAndDestination(
-                change.getCreated().getExchangeRateData().getQuotes(),
-                conversionRequest.getSource(),
-                conversionRequest.getDestination()
-        );
+    public Rational getConvertedAmount(String sourceId, ConversionRequest conversionRequest) {
+        return getConvertedAmount(sourceId, conversionRequest, conversionMode);
+    }
 
-        BigFraction convertedAmount = new BigFraction(conversionRequest.getAmount())
-                .multiply(
-                        new BigFraction(quote.getExchangeRate().getP(), quote.getExchangeRate().getQ())
-                );
+    public Rational getConvertedAmount(
+            String sourceId,
+            ConversionRequest conversionRequest,
+            ConversionMode conversionMode) {
+        log.info("Trying to convert amount, sourceId='{}', conversionRequest='{}', conversionMode='{}'",
+                sourceId, conversionRequest, conversionMode);
+        ChangeSnapshot snapshot = getSnapshotByTime(sourceId, getConversionTime(conversionRequest));
+        Rational convertedAmount = convert(snapshot, conversionRequest, conversionMode);
         log.info(
                 "Amount have been converted, sourceId='{}', conversionRequest='{}', convertedAmount='{}'",
                 sourceId,
@@ -107,8 +145,216 @@ public class ExchangeRateService {
         return convertedAmount;
     }
 
+    public List<ConversionResult> getConvertedAmounts(List<SourceConversionRequest> requests) {
+        return getConvertedAmounts(requests, conversionMode);
+    }
+
+    /**
+     * Convert amounts of many requests, each at its own time.
+     * <p>
+     * Requests are processed in (sourceId, datetime) order, so every change is resolved once
+     * for all requests of its interval instead of once per request. A request that fails, e.g. with a malformed
+     * datetime, fails alone and doesn't affect the others.
+     *
+     * @return conversion results in the order of requests
+     */
+    public List<ConversionResult> getConvertedAmounts(
+            List<SourceConversionRequest> requests,
+            ConversionMode conversionMode) {
+        log.info("Trying to convert amounts, count='{}', conversionMode='{}'", requests.size(), conversionMode);
+        Instant now = Instant.now();
+        ConversionResult[] results = new ConversionResult[requests.size()];
+        Instant[] times = new Instant[requests.size()];
+        List<Integer> order = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                times[i] = getConversionTime(requests.get(i).getConversionRequest(), now);
+                order.add(i);
+            } catch (DateTimeParseException ex) {
+                results[i] = ConversionResult.failure(ex);
+            }
+        }
+        order.sort(Comparator.comparing((Integer i) -> requests.get(i).getSourceId())
+                .thenComparing(i -> times[i]));
+
+        String currentSourceId = null;
+        ChangeSnapshot snapshot = null;
+        Instant failedTime = null;
+        RuntimeException snapshotError = null;
+        int resolvedCount = 0;
+        for (int i : order) {
+            SourceConversionRequest request = requests.get(i);
+            Instant time = times[i];
+            boolean sameInterval = request.getSourceId().equals(currentSourceId)
+                                   && (snapshot != null ? snapshot.contains(time) : time.equals(failedTime));
+            if (!sameInterval) {
+                currentSourceId = request.getSourceId();
+                resolvedCount++;
+                try {
+                    snapshot = getSnapshotByTime(currentSourceId, time);
+                    snapshotError = null;
+                } catch (QuoteNotFoundException | UnknownSourceException ex) {
+                    snapshot = null;
+                    failedTime = time;
+                    snapshotError = ex;
+                }
+            }
+
+            if (snapshot == null) {
+                results[i] = ConversionResult.failure(snapshotError);
+                continue;
+            }
+            try {
+                Rational convertedAmount = convert(snapshot, request.getConversionRequest(), conversionMode);
+                results[i] = ConversionResult.success(convertedAmount);
+            } catch (CurrencyNotFoundException | AmountOverflowException ex) {
+                results[i] = ConversionResult.failure(ex);
+            }
+        }
+        log.info("Amounts have been converted, count='{}', resolvedChanges='{}'", requests.size(), resolvedCount);
+        return Arrays.asList(results);
+    }
+
     public Change getChangeByTime(String sourceId, Instant datetime) {
+        return getSnapshotByTime(sourceId, datetime).getChange();
+    }
+
+    public ChangeSnapshot indexChange(String sourceId, Change change) {
+        storeChange(sourceId, change);
+        return changeIndex.put(sourceId, change);
+    }
+
+    /**
+     * Append change read from machinegun to the local store, a failure is only logged
+     * as the change can be read from machinegun again.
+     */
+    private void storeChange(String sourceId, Change change) {
+        try {
+            changeStore.append(sourceId, change);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to store change, sourceId='{}'", sourceId, ex);
+        }
+    }
+
+    /**
+     * Put changes with sequence ids in (after, after + limit] into the index, reading them from the local store,
+     * or from machinegun if any of them is not stored.
+     *
+     * @return count of indexed changes
+     */
+    public int preloadChanges(String sourceId, long after, int limit) {
+        ScheduleTable scheduleTable = getSourceByType(sourceId).getScheduleTable();
+        // intervals beyond the schedule table are not published yet, they are read from machinegun if present
+        long lastSequenceId = Math.min(after + limit, scheduleTable.size());
+        int indexedCount = 0;
+        for (long sequenceId = after + 1; sequenceId <= lastSequenceId; sequenceId++) {
+            Instant lowerBound = scheduleTable.getLowerBound(sequenceId);
+            if (changeIndex.find(sourceId, lowerBound) == null) {
+                Change storedChange = changeStore.find(sourceId, lowerBound);
+                if (storedChange == null) {
+                    break;
+                }
+                changeIndex.put(sourceId, storedChange);
+            }
+            indexedCount++;
+        }
+        if (indexedCount == limit) {
+            return indexedCount;
+        }
+
+        List<TMachineEvent<Change>> events =
+                automatonClient.getEvents(sourceId, ProtoUtil.buildHistoryRangeAfter(after, limit));
+        for (TMachineEvent<Change> event : events) {
+            indexChange(sourceId, event.getData());
+        }
+        return events.size();
+    }
+
+    public ChangeSnapshot getSnapshotByTime(String sourceId, Instant datetime) {
         log.info("Trying to get change by time, sourceId='{}', datetime='{}'", sourceId, datetime);
+        ChangeSnapshot indexedSnapshot = changeIndex.find(sourceId, datetime);
+        if (indexedSnapshot != null) {
+            log.info("Change have been found in index, sourceId='{}', datetime='{}'", sourceId, datetime);
+            return indexedSnapshot;
+        }
+
+        long sequenceId = getSourceByType(sourceId).getScheduleTable().findSequenceId(datetime);
+        if (sequenceId < 0) {
+            throw new QuoteNotFoundException();
+        }
+
+        String key = sourceId + "/" + sequenceId;
+        if (negativeCache.contains(key)) {
+            throw new QuoteNotFoundException(String.format(
+                    "Change was recently not found, sourceId='%s', sequenceId='%d'", sourceId, sequenceId
+            ));
+        }
+        ChangeSnapshot snapshot;
+        try {
+            snapshot = changeRequests.execute(key, () -> retrieveSnapshot(sourceId, sequenceId, datetime));
+        } catch (QuoteNotFoundException ex) {
+            negativeCache.put(key);
+            throw ex;
+        }
+        if (!snapshot.contains(datetime)) {
+            negativeCache.put(key);
+            throw new QuoteNotFoundException(String.format(
+                    "Change doesn't match source schedule, sourceId='%s', sequenceId='%d', datetime='%s'",
+                    sourceId,
+                    sequenceId,
+                    datetime
+            ));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Retrieve change of the interval from the local store, or from machinegun if it's not stored yet,
+     * and put it into the index. Concurrent lookups of the same interval share a single call,
+     * see {@link SingleFlight}.
+     */
+    private ChangeSnapshot retrieveSnapshot(String sourceId, long sequenceId, Instant datetime) {
+        ChangeSnapshot indexedSnapshot = changeIndex.find(sourceId, datetime);
+        if (indexedSnapshot != null) {
+            return indexedSnapshot;
+        }
+        Change storedChange = changeStore.find(sourceId, datetime);
+        if (storedChange != null) {
+            log.info("Change have been found in store, sourceId='{}', sequenceId='{}'", sourceId, sequenceId);
+            return changeIndex.put(sourceId, storedChange);
+        }
+        ScheduleTable scheduleTable = getSourceByType(sourceId).getScheduleTable();
+        Change change = ProtoUtil.getFirstEvent(automatonClient.getEvents(sourceId,
+                ProtoUtil.buildFirstEventHistoryRangeAfter(sequenceId - 1)));
+        boolean matchesSchedule = change == null
+                ? matchesFirstEvent(sourceId, scheduleTable)
+                : ProtoUtil.getLowerBound(change).equals(scheduleTable.getLowerBound(sequenceId));
+        if (!matchesSchedule) {
+            // initial time or cron of the source was changed after the machine had been created
+            log.warn("Machinegun history doesn't match source schedule, falling back to history lookup, " +
+                    "sourceId='{}', sequenceId='{}'", sourceId, sequenceId);
+            return getSnapshotFromHistory(sourceId, datetime);
+        }
+        if (change == null) {
+            throw new QuoteNotFoundException();
+        }
+        log.info("Change have been retrieved, sourceId='{}', sequenceId='{}', change='{}'",
+                sourceId, sequenceId, change);
+        return indexChange(sourceId, change);
+    }
+
+    private boolean matchesFirstEvent(String sourceId, ScheduleTable scheduleTable) {
+        Change firstChange = ProtoUtil.getFirstEvent(
+                automatonClient.getEvents(sourceId, ProtoUtil.buildFirstEventHistoryRange())
+        );
+        return firstChange == null || ProtoUtil.getLowerBound(firstChange).equals(scheduleTable.getLowerBound(1));
+    }
+
+    /**
+     * Find change by machinegun history only: the sequence id is estimated from the first event of the machine,
+     * assuming all intervals have the length of the first one.
+     */
+    private ChangeSnapshot getSnapshotFromHistory(String sourceId, Instant datetime) {
         Change firstChange = Optional.ofNullable(
                 ProtoUtil.getFirstEvent(automatonClient.getEvents(sourceId, ProtoUtil.buildFirstEventHistoryRange()))
         ).orElseThrow(QuoteNotFoundException::new);
@@ -118,15 +364,54 @@ public class ExchangeRateService {
         if (totalDuration.isNegative()) {
             throw new QuoteNotFoundException();
         }
-
-        long previousSequenceId = totalDuration.dividedBy(Duration.between(lowerBound,
-                ProtoUtil.getUpperBound(firstChange)));
+        long previousSequenceId = totalDuration.dividedBy(
+                Duration.between(lowerBound, ProtoUtil.getUpperBound(firstChange))
+        );
         Change change = Optional.ofNullable(
                 ProtoUtil.getFirstEvent(automatonClient.getEvents(sourceId,
                         ProtoUtil.buildFirstEventHistoryRangeAfter(previousSequenceId)))
         ).orElseThrow(QuoteNotFoundException::new);
-        log.info("Change have been retrieved, sourceId='{}', datetime='{}', change='{}'", sourceId, datetime, change);
-        return change;
+        log.info("Change have been retrieved from history, sourceId='{}', datetime='{}', change='{}'",
+                sourceId, datetime, change);
+        ChangeSnapshot snapshot = indexChange(sourceId, change);
+        if (!snapshot.contains(datetime)) {
+            throw new QuoteNotFoundException();
+        }
+        return snapshot;
+    }
+
+    private Instant getConversionTime(ConversionRequest conversionRequest) {
+        return getConversionTime(conversionRequest, Instant.now());
+    }
+
+    private Instant getConversionTime(ConversionRequest conversionRequest, Instant now) {
+        return Optional.ofNullable(conversionRequest.getDatetime())
+                .map(Instant::parse)
+                .orElse(now);
+    }
+
+    private Rational convert(
+            ChangeSnapshot snapshot,
+            ConversionRequest conversionRequest,
+            ConversionMode conversionMode) {
+        String sourceCurrency = conversionRequest.getSource();
+        String destinationCurrency = conversionRequest.getDestination();
+        QuoteIndex quoteIndex = snapshot.getQuoteIndex();
+        int quote = quoteIndex.indexOf(sourceCurrency, destinationCurrency);
+        if (quote >= 0) {
+            return RationalUtil.multiply(
+                    conversionRequest.getAmount(),
+                    quoteIndex.getNumerator(quote),
+                    quoteIndex.getDenominator(quote)
+            );
+        }
+        if (conversionMode == ConversionMode.DERIVED) {
+            BigFraction rate = snapshot.getCrossRateMatrix().find(sourceCurrency, destinationCurrency);
+            if (rate != null) {
+                return RationalUtil.multiply(conversionRequest.getAmount(), rate);
+            }
+        }
+        throw new CurrencyNotFoundException();
     }
 
     private Source getSourceByType(String sourceId) {
@@ -138,17 +423,4 @@ public class ExchangeRateService {
         throw new UnknownSourceException(String.format("Unknown source, sourceType='%s'", sourceId));
     }
 
-    private Quote filterQuoteBySourceAndDestination(
-            List<Quote> quotes,
-            String sourceCurrency,
-            String destinationCurrency) {
-        return quotes.stream()
-                .filter(
-                        quote -> quote.getSource().getSymbolicCode().equals(sourceCurrency)
-                                 && quote.getDestination().getSymbolicCode().equals(destinationCurrency)
-                )
-                .findFirst()
-                .orElseThrow(CurrencyNotFoundException::new);
-    }
-
 }
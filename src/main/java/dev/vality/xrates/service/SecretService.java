@@ -3,28 +3,122 @@ package dev.vality.xrates.service;
 import dev.vality.adapter.common.secret.SecretRef;
 import dev.vality.adapter.common.secret.SecretValue;
 import dev.vality.adapter.common.secret.VaultSecretService;
+import dev.vality.xrates.cache.SingleFlight;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Secrets of payment systems from vault, cached for {@code service.secrets.ttl}.
+ * <p>
+ * A secret older than {@code service.secrets.refreshAfter} is still returned from the cache, but is reloaded
+ * in background, so callers don't wait for vault while the secret is fresh enough. If the reload fails
+ * the cached secret is kept until it expires, only then callers load it from vault themselves.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
-public class SecretService {
+public class SecretService implements DisposableBean {
     public static final String TERMINAL_ID = "terminal_id";
     public static final String SECRET_KEY = "secret_key";
 
     private final VaultSecretService vaultSecretService;
 
+    private final long ttlNanos;
+
+    private final long refreshAfterNanos;
+
+    private final Map<String, CachedSecret> secrets = new ConcurrentHashMap<>();
+
+    private final SingleFlight<String, CachedSecret> secretRequests = new SingleFlight<>();
+
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "secret-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     @Value("${spring.application.name}")
     private String applicationName;
 
+    public SecretService(
+            VaultSecretService vaultSecretService,
+            @Value("${service.secrets.ttl}") Duration ttl,
+            @Value("${service.secrets.refreshAfter}") Duration refreshAfter) {
+        this.vaultSecretService = vaultSecretService;
+        this.ttlNanos = ttl.toNanos();
+        this.refreshAfterNanos = refreshAfter.toNanos();
+    }
+
     public String getTerminalId(String paymentSystem) {
-        SecretValue secret = vaultSecretService.getSecret(applicationName, new SecretRef(paymentSystem, TERMINAL_ID));
-        return secret.getValue();
+        return getSecret(paymentSystem, TERMINAL_ID);
     }
 
     public String getSecretKey(String paymentSystem) {
-        SecretValue secret = vaultSecretService.getSecret(applicationName, new SecretRef(paymentSystem, SECRET_KEY));
-        return secret.getValue();
+        return getSecret(paymentSystem, SECRET_KEY);
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private String getSecret(String paymentSystem, String name) {
+        String key = paymentSystem + "/" + name;
+        CachedSecret secret = secrets.get(key);
+        long now = System.nanoTime();
+        if (secret == null || now - secret.loadedAt >= ttlNanos) {
+            return secretRequests.execute(key, () -> loadSecret(key, paymentSystem, name)).value;
+        }
+        if (now - secret.loadedAt >= refreshAfterNanos && secret.refreshing.compareAndSet(false, true)) {
+            try {
+                refreshExecutor.execute(() -> refreshSecret(key, paymentSystem, name));
+            } catch (RejectedExecutionException ex) {
+                secret.refreshing.set(false);
+            }
+        }
+        return secret.value;
     }
+
+    private void refreshSecret(String key, String paymentSystem, String name) {
+        try {
+            secretRequests.execute(key, () -> loadSecret(key, paymentSystem, name));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to refresh secret, keeping cached one, paymentSystem='{}', name='{}'",
+                    paymentSystem, name, ex);
+            CachedSecret secret = secrets.get(key);
+            if (secret != null) {
+                secret.refreshing.set(false);
+            }
+        }
+    }
+
+    private CachedSecret loadSecret(String key, String paymentSystem, String name) {
+        SecretValue secretValue = vaultSecretService.getSecret(applicationName, new SecretRef(paymentSystem, name));
+        CachedSecret secret = new CachedSecret(secretValue.getValue(), System.nanoTime());
+        secrets.put(key, secret);
+        log.debug("Secret have been loaded from vault, paymentSystem='{}', name='{}'", paymentSystem, name);
+        return secret;
+    }
+
+    @RequiredArgsConstructor
+    private static class CachedSecret {
+
+        private final String value;
+
+        private final long loadedAt;
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    }
+
 }
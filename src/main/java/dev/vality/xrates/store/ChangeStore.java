@@ -0,0 +1,38 @@
+package dev.vality.xrates.store;
+
+import dev.vality.xrates.rate.Change;
+
+import java.time.Instant;
+
+/**
+ * Local durable store of changes, per source, so they can be read without going to machinegun.
+ */
+public interface ChangeStore {
+
+    ChangeStore DISABLED = new ChangeStore() {
+
+        @Override
+        public Change find(String sourceId, Instant time) {
+            return null;
+        }
+
+        @Override
+        public void append(String sourceId, Change change) {
+            // nothing to store
+        }
+
+    };
+
+    /**
+     * Find change whose interval contains the given time.
+     *
+     * @return change, or null if it's not stored
+     */
+    Change find(String sourceId, Instant time);
+
+    /**
+     * Store change, if change of the same interval is not stored yet.
+     */
+    void append(String sourceId, Change change);
+
+}
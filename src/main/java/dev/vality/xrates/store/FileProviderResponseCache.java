@@ -0,0 +1,71 @@
+package dev.vality.xrates.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+
+/**
+ * Provider responses stored as files {@code <directory>/<provider>/[<paymentSystem>/]<date>}.
+ * <p>
+ * A response is written to a temporary file first and then atomically moved in place, so a crash never leaves
+ * a partial response behind. Failures to read or write the cache are logged and treated as a miss,
+ * the provider is requested in that case.
+ */
+@Slf4j
+public class FileProviderResponseCache implements ProviderResponseCache {
+
+    private final Path directory;
+
+    public FileProviderResponseCache(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        log.info("Provider response cache have been opened, directory='{}'", directory);
+    }
+
+    @Override
+    public byte[] find(String provider, String paymentSystem, LocalDate date) {
+        Path path = resolve(provider, paymentSystem, date);
+        try {
+            return Files.readAllBytes(path);
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException ex) {
+            log.warn("Failed to read provider response from cache, path='{}'", path, ex);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String provider, String paymentSystem, LocalDate date, byte[] response) {
+        Path path = resolve(provider, paymentSystem, date);
+        if (Files.exists(path)) {
+            return;
+        }
+        try {
+            Files.createDirectories(path.getParent());
+            Path temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temporary, response);
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            log.debug("Provider response have been cached, path='{}'", path);
+        } catch (IOException ex) {
+            log.warn("Failed to write provider response to cache, path='{}'", path, ex);
+        }
+    }
+
+    private Path resolve(String provider, String paymentSystem, LocalDate date) {
+        Path providerDirectory = directory.resolve(provider);
+        if (paymentSystem != null) {
+            providerDirectory = providerDirectory.resolve(paymentSystem);
+        }
+        return providerDirectory.resolve(date.toString());
+    }
+
+}
@@ -0,0 +1,296 @@
+package dev.vality.xrates.store;
+
+import dev.vality.xrates.base.Rational;
+import dev.vality.xrates.base.TimestampInterval;
+import dev.vality.xrates.rate.Change;
+import dev.vality.xrates.rate.Currency;
+import dev.vality.xrates.rate.ExchangeRateCreated;
+import dev.vality.xrates.rate.ExchangeRateData;
+import dev.vality.xrates.rate.Quote;
+import dev.vality.xrates.util.ProtoUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only store of changes in a single memory-mapped file.
+ * <p>
+ * Every record is {@code [int length][int crc32][body]}, where body is the source id, interval bounds
+ * in epoch milliseconds and quotes with plain codes, exponents and rational parts. Records are never
+ * rewritten, a record whose length or checksum doesn't match (e.g. torn by a crash) ends the store on open
+ * and is overwritten by the next append. Only record positions are kept in memory, records are decoded
+ * from the mapped file on lookup. The file grows by doubling of the mapped size.
+ * <p>
+ * Appends are not forced to disk one by one, the mapped file is flushed in background every flush interval
+ * and on close. Records appended since the last flush may be lost by a crash of the host, they are read
+ * from machinegun again then.
+ */
+@Slf4j
+public class MappedChangeStore implements ChangeStore, AutoCloseable {
+
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    private final FileChannel channel;
+
+    private final Map<String, NavigableMap<Long, Position>> positionsBySource = new ConcurrentHashMap<>();
+
+    private volatile MappedByteBuffer buffer;
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-store-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private int writePosition;
+
+    private boolean dirty;
+
+    public MappedChangeStore(Path path, long initialSize, Duration flushInterval) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), initialSize));
+        this.writePosition = recover();
+        log.info("Change store have been opened, path='{}', size='{}', sources='{}'",
+                path, writePosition, positionsBySource.keySet());
+        flusher.scheduleWithFixedDelay(
+                this::flushSafely,
+                flushInterval.toMillis(),
+                flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    @Override
+    public Change find(String sourceId, Instant time) {
+        NavigableMap<Long, Position> positions = positionsBySource.get(sourceId);
+        if (positions == null) {
+            return null;
+        }
+        long millis = time.toEpochMilli();
+        Map.Entry<Long, Position> entry = positions.floorEntry(millis);
+        if (entry == null || millis >= entry.getValue().upperBound) {
+            return null;
+        }
+        ByteBuffer record = buffer.duplicate();
+        record.position(entry.getValue().offset + HEADER_SIZE);
+        return decode(record).change;
+    }
+
+    @Override
+    public synchronized void append(String sourceId, Change change) {
+        long lowerBound = ProtoUtil.getLowerBound(change).toEpochMilli();
+        NavigableMap<Long, Position> positions = getPositions(sourceId);
+        if (positions.containsKey(lowerBound)) {
+            return;
+        }
+
+        byte[] body = encode(sourceId, change);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ensureCapacity(writePosition + HEADER_SIZE + body.length + HEADER_SIZE);
+
+        MappedByteBuffer current = buffer;
+        int offset = writePosition;
+        current.position(offset + HEADER_SIZE);
+        current.put(body);
+        // end marker, so a longer record torn before is not read after this one
+        current.putInt(0);
+        current.putInt(offset + Integer.BYTES, (int) crc.getValue());
+        current.putInt(offset, body.length);
+        dirty = true;
+
+        writePosition = offset + HEADER_SIZE + body.length;
+        positions.put(lowerBound, new Position(ProtoUtil.getUpperBound(change).toEpochMilli(), offset));
+    }
+
+    /**
+     * Force records appended since the last flush to disk.
+     */
+    public synchronized void flush() {
+        if (dirty) {
+            buffer.force();
+            dirty = false;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flusher.shutdownNow();
+        buffer.force();
+        channel.close();
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            log.warn("Failed to flush change store", ex);
+        }
+    }
+
+    private int recover() {
+        ByteBuffer current = buffer.duplicate();
+        int position = 0;
+        while (position + HEADER_SIZE <= current.capacity()) {
+            int length = current.getInt(position);
+            if (length <= 0 || position + HEADER_SIZE + length > current.capacity()) {
+                break;
+            }
+            byte[] body = new byte[length];
+            current.position(position + HEADER_SIZE);
+            current.get(body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != current.getInt(position + Integer.BYTES)) {
+                log.warn("Change store record is corrupted and will be overwritten, position='{}'", position);
+                break;
+            }
+            Record record = decode(ByteBuffer.wrap(body));
+            getPositions(record.sourceId).putIfAbsent(record.lowerBound, new Position(record.upperBound, position));
+            position += HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private void ensureCapacity(long capacity) {
+        if (capacity <= buffer.capacity()) {
+            return;
+        }
+        long size = buffer.capacity();
+        while (size < capacity) {
+            size *= 2;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException(String.format("Change store is full, size='%d'", buffer.capacity()));
+        }
+        // records written through the previous mapping are flushed before it's replaced
+        flush();
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private NavigableMap<Long, Position> getPositions(String sourceId) {
+        return positionsBySource.computeIfAbsent(sourceId, key -> new ConcurrentSkipListMap<>());
+    }
+
+    private static byte[] encode(String sourceId, Change change) {
+        ExchangeRateData exchangeRateData = change.getCreated().getExchangeRateData();
+        List<Quote> quotes = exchangeRateData.isSetQuotes() ? exchangeRateData.getQuotes() : List.of();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + quotes.size() * 32);
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            writeString(output, sourceId);
+            output.writeLong(ProtoUtil.getLowerBound(change).toEpochMilli());
+            output.writeLong(ProtoUtil.getUpperBound(change).toEpochMilli());
+            output.writeInt(quotes.size());
+            for (Quote quote : quotes) {
+                writeString(output, quote.getSource().getSymbolicCode());
+                output.writeShort(quote.getSource().getExponent());
+                writeString(output, quote.getDestination().getSymbolicCode());
+                output.writeShort(quote.getDestination().getExponent());
+                output.writeLong(quote.getExchangeRate().getP());
+                output.writeLong(quote.getExchangeRate().getQ());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Record decode(ByteBuffer input) {
+        String sourceId = readString(input);
+        long lowerBound = input.getLong();
+        long upperBound = input.getLong();
+        int quoteCount = input.getInt();
+        List<Quote> quotes = new ArrayList<>(quoteCount);
+        for (int i = 0; i < quoteCount; i++) {
+            Currency source = new Currency(readString(input), input.getShort());
+            Currency destination = new Currency(readString(input), input.getShort());
+            quotes.add(new Quote(source, destination, new Rational(input.getLong(), input.getLong())));
+        }
+        ExchangeRateData exchangeRateData = new ExchangeRateData()
+                .setInterval(new TimestampInterval(
+                        Instant.ofEpochMilli(lowerBound).toString(),
+                        Instant.ofEpochMilli(upperBound).toString()
+                ))
+                .setQuotes(quotes);
+        return new Record(sourceId, lowerBound, upperBound, Change.created(new ExchangeRateCreated(exchangeRateData)));
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeShort(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer input) {
+        byte[] bytes = new byte[input.getShort() & 0xFFFF];
+        input.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class Position {
+
+        private final long upperBound;
+
+        private final int offset;
+
+        private Position(long upperBound, int offset) {
+            this.upperBound = upperBound;
+            this.offset = offset;
+        }
+
+    }
+
+    private static class Record {
+
+        private final String sourceId;
+
+        private final long lowerBound;
+
+        private final long upperBound;
+
+        private final Change change;
+
+        private Record(String sourceId, long lowerBound, long upperBound, Change change) {
+            this.sourceId = sourceId;
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+            this.change = change;
+        }
+
+    }
+
+}
@@ -0,0 +1,40 @@
+package dev.vality.xrates.store;
+
+import java.time.LocalDate;
+
+/**
+ * Local durable cache of raw provider responses by provider, payment system and date,
+ * so rates of dates which are already final are read without requests to the provider.
+ */
+public interface ProviderResponseCache {
+
+    ProviderResponseCache DISABLED = new ProviderResponseCache() {
+
+        @Override
+        public byte[] find(String provider, String paymentSystem, LocalDate date) {
+            return null;
+        }
+
+        @Override
+        public void put(String provider, String paymentSystem, LocalDate date, byte[] response) {
+            // nothing to cache
+        }
+
+    };
+
+    /**
+     * Find response of the provider.
+     *
+     * @param paymentSystem - payment system, or null if provider doesn't have them
+     * @return raw response, or null if it's not cached
+     */
+    byte[] find(String provider, String paymentSystem, LocalDate date);
+
+    /**
+     * Cache response of the provider, only responses of final dates are expected here.
+     *
+     * @param paymentSystem - payment system, or null if provider doesn't have them
+     */
+    void put(String provider, String paymentSystem, LocalDate date, byte[] response);
+
+}
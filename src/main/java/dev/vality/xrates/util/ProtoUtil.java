@@ -60,6 +60,14 @@ public class ProtoUtil {
         return historyRange;
     }
 
+    public static HistoryRange buildHistoryRangeAfter(long after, int limit) {
+        HistoryRange historyRange = new HistoryRange();
+        historyRange.setDirection(Direction.forward);
+        historyRange.setAfter(after);
+        historyRange.setLimit(limit);
+        return historyRange;
+    }
+
     public static Change buildCreatedChange(SourceData sourceData) {
         ExchangeRateData exchangeRateData = new ExchangeRateData();
         exchangeRateData.setInterval(
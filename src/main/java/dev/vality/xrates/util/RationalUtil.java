@@ -0,0 +1,70 @@
+package dev.vality.xrates.util;
+
+import dev.vality.xrates.base.Rational;
+import dev.vality.xrates.exception.AmountOverflowException;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.apache.commons.math3.fraction.BigFraction;
+import org.apache.commons.math3.util.ArithmeticUtils;
+
+import java.math.BigInteger;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class RationalUtil {
+
+    /**
+     * Multiply amount by rational rate.
+     * <p>
+     * The calculation is done on primitive longs with gcd reduction of the operands, so the result is already
+     * reduced and no big numbers are allocated. If an intermediate value doesn't fit into long,
+     * the calculation falls back to {@link BigFraction}.
+     *
+     * @param amount      - amount to multiply
+     * @param numerator   - numerator of the rate
+     * @param denominator - denominator of the rate
+     * @return reduced rational number with positive denominator
+     * @throws AmountOverflowException if the result can't be represented with long numerator and denominator
+     */
+    public static Rational multiply(long amount, long numerator, long denominator) {
+        if (denominator == 0) {
+            throw new ArithmeticException("Denominator must not be zero");
+        }
+        try {
+            long rateGcd = ArithmeticUtils.gcd(numerator, denominator);
+            long rateNumerator = numerator / rateGcd;
+            long rateDenominator = denominator / rateGcd;
+            if (rateDenominator < 0) {
+                rateNumerator = Math.negateExact(rateNumerator);
+                rateDenominator = Math.negateExact(rateDenominator);
+            }
+            long gcd = ArithmeticUtils.gcd(amount, rateDenominator);
+            return new Rational(
+                    Math.multiplyExact(amount / gcd, rateNumerator),
+                    rateDenominator / gcd
+            );
+        } catch (ArithmeticException ex) {
+            return toRational(new BigFraction(amount).multiply(new BigFraction(numerator, denominator)));
+        }
+    }
+
+    public static Rational multiply(long amount, BigFraction rate) {
+        if (rate.getNumerator().bitLength() < Long.SIZE && rate.getDenominator().bitLength() < Long.SIZE) {
+            return multiply(amount, rate.getNumeratorAsLong(), rate.getDenominatorAsLong());
+        }
+        return toRational(new BigFraction(amount).multiply(rate));
+    }
+
+    public static Rational toRational(BigFraction value) {
+        BigInteger numerator = value.getNumerator();
+        BigInteger denominator = value.getDenominator();
+        if (numerator.bitLength() >= Long.SIZE || denominator.bitLength() >= Long.SIZE) {
+            throw new AmountOverflowException(String.format(
+                    "Rational value doesn't fit into long, value='%s/%s'",
+                    numerator,
+                    denominator
+            ));
+        }
+        return new Rational(numerator.longValue(), denominator.longValue());
+    }
+
+}
@@ -0,0 +1,45 @@
+package dev.vality.xrates.util;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class VirtualThreadUtil {
+
+    /**
+     * Create an executor that starts a new virtual thread for each task.
+     * <p>
+     * The service is built for Java 17, so the executor is looked up at runtime and is only available
+     * on a Java 21 runtime. On older runtimes the service runs as long as virtual threads are not enabled.
+     *
+     * @throws IllegalStateException if virtual threads are not supported by the running JVM
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        MethodHandle factory;
+        try {
+            factory = MethodHandles.publicLookup().findStatic(
+                    Executors.class,
+                    "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class)
+            );
+        } catch (NoSuchMethodException | IllegalAccessException ex) {
+            throw new IllegalStateException(String.format(
+                    "Virtual threads are not supported, javaVersion='%s'", System.getProperty("java.version")
+            ), ex);
+        }
+        try {
+            return (ExecutorService) factory.invokeExact();
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Failed to create virtual thread executor", ex);
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package dev.vality.xrates.controller;
+
+import dev.vality.xrates.base.Rational;
+import dev.vality.xrates.controller.data.BatchConversionRequestData;
+import dev.vality.xrates.controller.data.BatchConversionResponseData;
+import dev.vality.xrates.controller.data.ConversionRequestData;
+import dev.vality.xrates.controller.data.ConversionResultData;
+import dev.vality.xrates.domain.ConversionMode;
+import dev.vality.xrates.domain.ConversionResult;
+import dev.vality.xrates.domain.SourceConversionRequest;
+import dev.vality.xrates.exception.QuoteNotFoundException;
+import dev.vality.xrates.service.ExchangeRateService;
+import dev.vality.xrates.service.SecretService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@TestPropertySource(properties = {"sources.needInitialize=false", "service.conversion.maxBatchSize=2"})
+public class BatchConversionControllerTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @MockBean
+    private ExchangeRateService exchangeRateService;
+
+    @MockBean
+    private SecretService secretService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetConvertedAmounts() {
+        given(exchangeRateService.getConvertedAmounts(any(), eq(ConversionMode.DERIVED)))
+                .willReturn(List.of(
+                        ConversionResult.success(new Rational(700247, 100)),
+                        ConversionResult.failure(new DateTimeParseException("invalid", "yesterday", 0))
+                ));
+        BatchConversionRequestData batchRequest = new BatchConversionRequestData();
+        batchRequest.setConversionMode(ConversionMode.DERIVED);
+        batchRequest.setRequests(List.of(
+                buildRequest("CBR", "2020-01-01T00:00:00Z"),
+                buildRequest("CBR", "yesterday")
+        ));
+
+        ResponseEntity<BatchConversionResponseData> response =
+                restTemplate.postForEntity("/v1/rates/batch", batchRequest, BatchConversionResponseData.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(
+                List.of(
+                        new ConversionResultData(700247L, 100L, null),
+                        new ConversionResultData(null, null, BatchConversionController.INVALID_DATETIME)
+                ),
+                response.getBody().getResults()
+        );
+        ArgumentCaptor<List<SourceConversionRequest>> requests = ArgumentCaptor.forClass(List.class);
+        verify(exchangeRateService).getConvertedAmounts(requests.capture(), eq(ConversionMode.DERIVED));
+        assertEquals("USD", requests.getValue().get(0).getConversionRequest().getSource());
+        assertEquals("yesterday", requests.getValue().get(1).getConversionRequest().getDatetime());
+    }
+
+    @Test
+    public void testGetConvertedAmountsWithDefaultMode() {
+        given(exchangeRateService.getConvertedAmounts(any()))
+                .willReturn(List.of(ConversionResult.failure(new QuoteNotFoundException())));
+        BatchConversionRequestData batchRequest = new BatchConversionRequestData();
+        batchRequest.setRequests(List.of(buildRequest("CBR", null)));
+
+        ResponseEntity<BatchConversionResponseData> response =
+                restTemplate.postForEntity("/v1/rates/batch", batchRequest, BatchConversionResponseData.class);
+
+        assertEquals(
+                Collections.singletonList(
+                        new ConversionResultData(null, null, BatchConversionController.QUOTE_NOT_FOUND)
+                ),
+                response.getBody().getResults()
+        );
+    }
+
+    @Test
+    public void testGetConvertedAmountsWhenBatchIsTooLarge() {
+        BatchConversionRequestData batchRequest = new BatchConversionRequestData();
+        batchRequest.setRequests(List.of(
+                buildRequest("CBR", null),
+                buildRequest("CBR", null),
+                buildRequest("CBR", null)
+        ));
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/v1/rates/batch", batchRequest, String.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    private ConversionRequestData buildRequest(String sourceId, String datetime) {
+        ConversionRequestData request = new ConversionRequestData();
+        request.setSourceId(sourceId);
+        request.setSource("USD");
+        request.setDestination("RUB");
+        request.setAmount(100);
+        request.setDatetime(datetime);
+        return request;
+    }
+
+}
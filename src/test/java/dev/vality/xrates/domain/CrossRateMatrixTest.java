@@ -0,0 +1,82 @@
+package dev.vality.xrates.domain;
+
+import dev.vality.xrates.base.Rational;
+import dev.vality.xrates.rate.Currency;
+import dev.vality.xrates.rate.Quote;
+import org.apache.commons.math3.fraction.BigFraction;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CrossRateMatrixTest {
+
+    @Test
+    public void testPublishedRates() {
+        CrossRateMatrix matrix = CrossRateMatrix.of(List.of(
+                buildQuote("USD", "RUB", new Rational(700247, 10000)),
+                buildQuote("EUR", "RUB", new Rational(781234, 10000))
+        ));
+
+        assertEquals(new BigFraction(700247, 10000), matrix.find("USD", "RUB"));
+        assertEquals(new BigFraction(390617, 5000), matrix.find("EUR", "RUB"));
+        assertEquals(BigFraction.ONE, matrix.find("USD", "USD"));
+    }
+
+    @Test
+    public void testInverseRates() {
+        CrossRateMatrix matrix = CrossRateMatrix.of(List.of(
+                buildQuote("USD", "RUB", new Rational(700247, 10000)),
+                buildQuote("EUR", "RUB", new Rational(781234, 10000))
+        ));
+
+        assertEquals(new BigFraction(10000, 700247), matrix.find("RUB", "USD"));
+        assertEquals(new BigFraction(5000, 390617), matrix.find("RUB", "EUR"));
+    }
+
+    @Test
+    public void testCrossRates() {
+        CrossRateMatrix matrix = CrossRateMatrix.of(List.of(
+                buildQuote("USD", "RUB", new Rational(700247, 10000)),
+                buildQuote("EUR", "RUB", new Rational(781234, 10000)),
+                buildQuote("GBP", "RUB", new Rational(901234, 10000))
+        ));
+
+        assertEquals(new BigFraction(700247, 781234), matrix.find("USD", "EUR"));
+        assertEquals(new BigFraction(781234, 700247), matrix.find("EUR", "USD"));
+        assertEquals(new BigFraction(901234, 781234), matrix.find("GBP", "EUR"));
+    }
+
+    @Test
+    public void testPublishedRateIsPreferredOverDerivedOne() {
+        CrossRateMatrix matrix = CrossRateMatrix.of(List.of(
+                buildQuote("USD", "RUB", new Rational(70, 1)),
+                buildQuote("RUB", "USD", new Rational(1, 71))
+        ));
+
+        assertEquals(new BigFraction(1, 71), matrix.find("RUB", "USD"));
+    }
+
+    @Test
+    public void testMissingPairs() {
+        CrossRateMatrix matrix = CrossRateMatrix.of(List.of(
+                buildQuote("USD", "RUB", new Rational(700247, 10000)),
+                buildQuote("EUR", "GBP", new Rational(8512, 10000)),
+                buildQuote("CHF", "RUB", new Rational(0, 1))
+        ));
+
+        assertNull(matrix.find("EUR", "USD"));
+        assertNull(matrix.find("USD", "GBP"));
+        assertNull(matrix.find("RUB", "CHF"));
+        assertNull(matrix.find("USD", "CHF"));
+        assertNull(matrix.find("JPY", "RUB"));
+        assertNull(matrix.find("usd", "RUB"));
+        assertNull(CrossRateMatrix.of(null).find("USD", "RUB"));
+    }
+
+    private Quote buildQuote(String source, String destination, Rational rational) {
+        return new Quote(new Currency(source, (short) 2), new Currency(destination, (short) 2), rational);
+    }
+
+}
@@ -0,0 +1,73 @@
+package dev.vality.xrates.domain;
+
+import dev.vality.xrates.base.Rational;
+import dev.vality.xrates.rate.Currency;
+import dev.vality.xrates.rate.Quote;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class QuoteIndexTest {
+
+    @Test
+    public void testFind() {
+        Quote usdQuote = buildQuote("USD", "RUB", new Rational(700247, 10000));
+        Quote eurQuote = buildQuote("EUR", "RUB", new Rational(781234, 10000));
+        QuoteIndex quoteIndex = QuoteIndex.of(List.of(usdQuote, eurQuote));
+
+        int usdIndex = quoteIndex.indexOf("USD", "RUB");
+        assertEquals(700247, quoteIndex.getNumerator(usdIndex));
+        assertEquals(10000, quoteIndex.getDenominator(usdIndex));
+        int eurIndex = quoteIndex.indexOf("EUR", "RUB");
+        assertEquals(390617, quoteIndex.getNumerator(eurIndex));
+        assertEquals(5000, quoteIndex.getDenominator(eurIndex));
+        assertEquals(-1, quoteIndex.indexOf("RUB", "USD"));
+        assertEquals(-1, quoteIndex.indexOf("USD", "EUR"));
+        assertEquals(-1, quoteIndex.indexOf("GBP", "RUB"));
+        assertEquals(-1, quoteIndex.indexOf("usd", "RUB"));
+
+        assertTrue(quoteIndex.hasCurrency("RUB"));
+        assertTrue(quoteIndex.hasCurrency("EUR"));
+        assertFalse(quoteIndex.hasCurrency("GBP"));
+    }
+
+    @Test
+    public void testFindUnpackableCodes() {
+        Quote usdQuote = buildQuote("USD", "RUB", new Rational(700247, 10000));
+        Quote usdtQuote = buildQuote("USDT", "RUB", new Rational(700000, 10000));
+        Quote lowercaseQuote = buildQuote("eur", "RUB", new Rational(781234, 10000));
+        QuoteIndex quoteIndex = QuoteIndex.of(List.of(usdQuote, usdtQuote, lowercaseQuote));
+
+        int usdIndex = quoteIndex.indexOf("USD", "RUB");
+        assertEquals(700247, quoteIndex.getNumerator(usdIndex));
+        int usdtIndex = quoteIndex.indexOf("USDT", "RUB");
+        assertEquals(70, quoteIndex.getNumerator(usdtIndex));
+        assertEquals(1, quoteIndex.getDenominator(usdtIndex));
+        int eurIndex = quoteIndex.indexOf("eur", "RUB");
+        assertEquals(390617, quoteIndex.getNumerator(eurIndex));
+        assertEquals(5000, quoteIndex.getDenominator(eurIndex));
+        assertEquals(-1, quoteIndex.indexOf("EUR", "RUB"));
+        assertEquals(-1, quoteIndex.indexOf("RUB", "USDT"));
+        assertEquals(-1, quoteIndex.indexOf(null, "RUB"));
+
+        assertTrue(quoteIndex.hasCurrency("USDT"));
+        assertTrue(quoteIndex.hasCurrency("eur"));
+        assertFalse(quoteIndex.hasCurrency("EUR"));
+    }
+
+    @Test
+    public void testPackCode() {
+        assertEquals(-1, QuoteIndex.packCode(null));
+        assertEquals(-1, QuoteIndex.packCode("US"));
+        assertEquals(-1, QuoteIndex.packCode("U$D"));
+        assertNotEquals(QuoteIndex.packCode("USD"), QuoteIndex.packCode("DSU"));
+        assertTrue(QuoteIndex.packCode("AAA") > 0);
+    }
+
+    private Quote buildQuote(String source, String destination, Rational rational) {
+        return new Quote(new Currency(source, (short) 2), new Currency(destination, (short) 2), rational);
+    }
+
+}
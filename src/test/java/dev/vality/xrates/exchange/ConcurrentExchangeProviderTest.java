@@ -0,0 +1,130 @@
+package dev.vality.xrates.exchange;
+
+import dev.vality.xrates.domain.ExchangeRate;
+import dev.vality.xrates.domain.SourceData;
+import dev.vality.xrates.exception.ProviderUnavailableResultException;
+import org.joda.money.CurrencyUnit;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentExchangeProviderTest {
+
+    private static final Instant INITIAL_TIME = Instant.parse("2020-01-01T00:00:00Z");
+
+    @Test
+    public void testRatesAreReturnedInOrder() {
+        List<Instant> times = buildTimes(20);
+        try (BackfillExecutor backfillExecutor = new BackfillExecutor(4)) {
+            ConcurrentExchangeProvider provider = new ConcurrentExchangeProvider(time -> {
+                sleepRandomly();
+                return buildRates(time);
+            }, backfillExecutor, 1000);
+            Map<Instant, List<ExchangeRate>> ratesByTime = provider.getExchangeRates(times);
+
+            assertEquals(times, new ArrayList<>(ratesByTime.keySet()));
+            ratesByTime.forEach((time, rates) -> assertEquals(buildRates(time).get(0).getConversionRate(),
+                    rates.get(0).getConversionRate()));
+        }
+    }
+
+    @Test
+    public void testPrefixIsReturnedWhenLaterTimeFails() {
+        List<Instant> times = buildTimes(10);
+        Instant failedTime = times.get(6);
+        try (BackfillExecutor backfillExecutor = new BackfillExecutor(4)) {
+            ConcurrentExchangeProvider provider = new ConcurrentExchangeProvider(time -> {
+                if (!time.isBefore(failedTime)) {
+                    throw new ProviderUnavailableResultException("unavailable");
+                }
+                return buildRates(time);
+            }, backfillExecutor, 1000);
+            Map<Instant, List<ExchangeRate>> ratesByTime = provider.getExchangeRates(times);
+
+            assertEquals(times.subList(0, 6), new ArrayList<>(ratesByTime.keySet()));
+        }
+    }
+
+    @Test(expected = ProviderUnavailableResultException.class)
+    public void testFailWhenFirstTimeFails() {
+        try (BackfillExecutor backfillExecutor = new BackfillExecutor(4)) {
+            new ConcurrentExchangeProvider(time -> {
+                throw new ProviderUnavailableResultException("unavailable");
+            }, backfillExecutor, 1000).getExchangeRates(buildTimes(5));
+        }
+    }
+
+    @Test
+    public void testRequestsPerSecondLimit() {
+        List<Instant> times = buildTimes(6);
+        try (BackfillExecutor backfillExecutor = new BackfillExecutor(6)) {
+            ConcurrentExchangeProvider provider =
+                    new ConcurrentExchangeProvider(this::buildRates, backfillExecutor, 20);
+            long startTime = System.nanoTime();
+            provider.getExchangeRates(times);
+            long elapsedMillis = Duration.ofNanos(System.nanoTime() - startTime).toMillis();
+
+            assertTrue(elapsedMillis >= 5 * 50 - 10);
+        }
+    }
+
+    @Test
+    public void testSourceDataForRange() {
+        try (BackfillExecutor backfillExecutor = new BackfillExecutor(4)) {
+            Source source = new Source(
+                    new ConcurrentExchangeProvider(this::buildRates, backfillExecutor, 1000),
+                    new CronResolver("00 00 * * *", ZoneOffset.UTC, Duration.ZERO),
+                    INITIAL_TIME,
+                    "SOURCE"
+            );
+
+            List<SourceData> sourceData =
+                    source.getSourceData(INITIAL_TIME, 5, INITIAL_TIME.plus(3, ChronoUnit.DAYS));
+
+            assertEquals(4, sourceData.size());
+            for (int i = 0; i < sourceData.size(); i++) {
+                assertEquals(INITIAL_TIME.plus(i, ChronoUnit.DAYS), sourceData.get(i).getLowerBound());
+                assertEquals(INITIAL_TIME.plus(i + 1L, ChronoUnit.DAYS), sourceData.get(i).getUpperBound());
+            }
+
+            List<SourceData> notExecutedYet = source.getSourceData(INITIAL_TIME, 5, INITIAL_TIME.minusSeconds(1));
+            assertEquals(1, notExecutedYet.size());
+        }
+    }
+
+    private List<Instant> buildTimes(int count) {
+        List<Instant> times = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            times.add(INITIAL_TIME.plus(i, ChronoUnit.DAYS));
+        }
+        return times;
+    }
+
+    private List<ExchangeRate> buildRates(Instant time) {
+        return List.of(new ExchangeRate(
+                CurrencyUnit.USD,
+                CurrencyUnit.of("RUB"),
+                BigDecimal.valueOf(time.getEpochSecond())
+        ));
+    }
+
+    private void sleepRandomly() {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(10));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package dev.vality.xrates.exchange;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class ScheduleTableTest {
+
+    @Test
+    public void testFindSequenceId() {
+        Instant initialTime = Instant.parse("2020-01-01T00:00:00Z");
+        ScheduleTable scheduleTable = buildSource("00 00 * * *", ZoneOffset.UTC, Duration.ZERO, initialTime)
+                .getScheduleTable();
+
+        assertEquals(1, scheduleTable.findSequenceId(initialTime));
+        assertEquals(1, scheduleTable.findSequenceId(Instant.parse("2020-01-01T12:00:00Z")));
+        assertEquals(3, scheduleTable.findSequenceId(Instant.parse("2020-01-03T00:00:00Z")));
+        assertEquals(Instant.parse("2020-01-03T00:00:00Z"), scheduleTable.getLowerBound(3));
+        assertEquals(Instant.parse("2020-01-04T00:00:00Z"), scheduleTable.getUpperBound(3));
+        assertEquals(-1, scheduleTable.findSequenceId(initialTime.minusMillis(1)));
+        assertEquals(-1, scheduleTable.findSequenceId(Instant.now().plus(Duration.ofDays(10))));
+    }
+
+    @Test
+    public void testFindSequenceIdAcrossDaylightSavingTime() {
+        ZoneId timezone = ZoneId.of("Europe/Berlin");
+        Instant initialTime = LocalDateTime.parse("2020-03-25T00:00:00").atZone(timezone).toInstant();
+        ScheduleTable scheduleTable = buildSource("00 00 * * *", timezone, Duration.ZERO, initialTime)
+                .getScheduleTable();
+
+        long sequenceId = scheduleTable.findSequenceId(
+                LocalDateTime.parse("2020-04-10T00:30:00").atZone(timezone).toInstant()
+        );
+        assertEquals(17, sequenceId);
+        assertEquals(
+                LocalDateTime.parse("2020-04-10T00:00:00").atZone(timezone).toInstant(),
+                scheduleTable.getLowerBound(sequenceId)
+        );
+        assertEquals(
+                Duration.ofHours(23),
+                Duration.between(scheduleTable.getLowerBound(5), scheduleTable.getUpperBound(5))
+        );
+    }
+
+    private Source buildSource(String cron, ZoneId timezone, Duration delay, Instant initialTime) {
+        return new Source(
+                time -> Collections.emptyList(),
+                new CronResolver(cron, timezone, delay),
+                initialTime,
+                "SOURCE"
+        );
+    }
+
+}
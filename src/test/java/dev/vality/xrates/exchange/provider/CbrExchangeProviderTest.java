@@ -5,13 +5,18 @@ import dev.vality.xrates.exception.ProviderUnavailableResultException;
 import dev.vality.xrates.exchange.ExchangeProvider;
 import dev.vality.xrates.exchange.impl.provider.cbr.CbrExchangeProvider;
 import dev.vality.xrates.exchange.impl.provider.cbr.adapter.CbrLocalDateXmlAdapter;
+import dev.vality.xrates.store.FileProviderResponseCache;
 import org.joda.money.CurrencyUnit;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.test.web.client.response.MockRestResponseCreators;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
@@ -23,6 +28,9 @@ import static org.springframework.test.web.client.response.MockRestResponseCreat
 
 public class CbrExchangeProviderTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private RestTemplate restTemplate = new RestTemplate();
 
     private MockRestServiceServer mockServer = MockRestServiceServer.bindTo(restTemplate).build();
@@ -115,6 +123,61 @@ public class CbrExchangeProviderTest {
         }
     }
 
+    @Test
+    public void testResponseOfPastDateIsCached() throws IOException {
+        LocalDate date = LocalDate.now(CbrExchangeProvider.DEFAULT_TIMEZONE).minusDays(10);
+        mockServer.expect(ExpectedCount.once(), requestTo(buildExpectedUrl(date)))
+                .andRespond(withSuccess(buildResponse(date), MediaType.APPLICATION_XML));
+
+        FileProviderResponseCache responseCache = new FileProviderResponseCache(temporaryFolder.getRoot().toPath());
+        ExchangeProvider exchangeProvider = new CbrExchangeProvider(
+                CbrExchangeProvider.DEFAULT_ENDPOINT,
+                CbrExchangeProvider.DEFAULT_TIMEZONE,
+                restTemplate,
+                responseCache
+        );
+        List<ExchangeRate> exchangeRates = providerRequest(exchangeProvider, date);
+        List<ExchangeRate> cachedExchangeRates = providerRequest(
+                new CbrExchangeProvider(
+                        CbrExchangeProvider.DEFAULT_ENDPOINT,
+                        CbrExchangeProvider.DEFAULT_TIMEZONE,
+                        restTemplate,
+                        responseCache
+                ),
+                date
+        );
+
+        assertEquals(exchangeRates.toString(), cachedExchangeRates.toString());
+        mockServer.verify();
+    }
+
+    @Test
+    public void testResponseOfCurrentDateIsNotCached() throws IOException {
+        LocalDate date = LocalDate.now(CbrExchangeProvider.DEFAULT_TIMEZONE);
+        mockServer.expect(ExpectedCount.twice(), requestTo(buildExpectedUrl(date)))
+                .andRespond(withSuccess(buildResponse(date), MediaType.APPLICATION_XML));
+
+        ExchangeProvider exchangeProvider = new CbrExchangeProvider(
+                CbrExchangeProvider.DEFAULT_ENDPOINT,
+                CbrExchangeProvider.DEFAULT_TIMEZONE,
+                restTemplate,
+                new FileProviderResponseCache(temporaryFolder.getRoot().toPath())
+        );
+        providerRequest(exchangeProvider, date);
+        providerRequest(exchangeProvider, date);
+
+        mockServer.verify();
+    }
+
+    private String buildResponse(LocalDate date) {
+        return "<ValCurs Date=\"" +
+               CbrLocalDateXmlAdapter.DATE_FORMATTER.format(date) +
+               "\" name=\"Foreign Currency Market\">" +
+               "<Valute ID=\"R01235\"><NumCode>840</NumCode><CharCode>USD</CharCode><Nominal>1</Nominal>" +
+               "<Name>Доллар США</Name><Value>73,5</Value></Valute>" +
+               "</ValCurs>";
+    }
+
     private String buildExpectedUrl(LocalDate date) {
         return CbrExchangeProvider.DEFAULT_ENDPOINT +
                "?date_req=" +
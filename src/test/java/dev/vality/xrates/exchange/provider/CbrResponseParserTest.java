@@ -0,0 +1,79 @@
+package dev.vality.xrates.exchange.provider;
+
+import dev.vality.xrates.domain.ExchangeRate;
+import dev.vality.xrates.exchange.impl.provider.cbr.CbrResponseParser;
+import dev.vality.xrates.exchange.impl.provider.cbr.data.CbrCurrencyData;
+import dev.vality.xrates.exchange.impl.provider.cbr.data.CbrExchangeRateData;
+import org.joda.money.CurrencyUnit;
+import org.junit.Test;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CbrResponseParserTest {
+
+    private final CbrResponseParser parser = new CbrResponseParser();
+
+    @Test
+    public void testParseSameAsJaxb() throws Exception {
+        byte[] response = readFixture("cbr_daily.xml");
+        CbrExchangeRateData expected = (CbrExchangeRateData) JAXBContext.newInstance(CbrExchangeRateData.class)
+                .createUnmarshaller()
+                .unmarshal(new ByteArrayInputStream(response));
+
+        List<ExchangeRate> exchangeRates = parser.parse(response);
+
+        assertEquals(expected.getCurrencies().size(), exchangeRates.size());
+        for (int i = 0; i < exchangeRates.size(); i++) {
+            CbrCurrencyData currency = expected.getCurrencies().get(i);
+            ExchangeRate exchangeRate = exchangeRates.get(i);
+            assertEquals(CurrencyUnit.of(currency.getCharCode()), exchangeRate.getSourceCurrency());
+            assertEquals(CurrencyUnit.of("RUB"), exchangeRate.getDestinationCurrency());
+            assertEquals(
+                    currency.getValue().divide(BigDecimal.valueOf(currency.getNominal())),
+                    exchangeRate.getConversionRate()
+            );
+        }
+    }
+
+    @Test
+    public void testParseValues() throws XMLStreamException {
+        List<ExchangeRate> exchangeRates = parser.parse((
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                "<ValCurs Date=\"11.04.2020\" name=\"Foreign Currency Market\">" +
+                "<Valute ID=\"R01060\"><NumCode>051</NumCode><CharCode>AMD</CharCode><Nominal>100</Nominal>" +
+                "<Name>Армянских драмов</Name><Value> 14,8725 </Value></Valute>" +
+                "<Valute ID=\"R01235\"><CharCode>USD</CharCode><Value>73.6282</Value></Valute>" +
+                "<Valute ID=\"R01239\"><CharCode>EUR</CharCode><Nominal>1</Nominal>" +
+                "<Value>12345678901234567890,12345</Value></Valute>" +
+                "</ValCurs>"
+        ).getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(3, exchangeRates.size());
+        assertEquals(new BigDecimal("0.148725"), exchangeRates.get(0).getConversionRate());
+        assertEquals(new BigDecimal("73.6282"), exchangeRates.get(1).getConversionRate());
+        assertEquals(new BigDecimal("12345678901234567890.12345"), exchangeRates.get(2).getConversionRate());
+    }
+
+    @Test(expected = XMLStreamException.class)
+    public void testParseInvalidValue() throws XMLStreamException {
+        parser.parse((
+                "<ValCurs><Valute><CharCode>USD</CharCode><Value>73,62,82</Value></Valute></ValCurs>"
+        ).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private byte[] readFixture(String name) throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/fixtures/" + name)) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+}
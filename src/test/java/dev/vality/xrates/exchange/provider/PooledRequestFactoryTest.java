@@ -0,0 +1,103 @@
+package dev.vality.xrates.exchange.provider;
+
+import com.sun.net.httpserver.HttpServer;
+import dev.vality.xrates.exchange.impl.provider.PooledRequestFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PooledRequestFactoryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+
+    private HttpServer server;
+
+    private PooledRequestFactory requestFactory;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/rates", exchange -> {
+            byte[] body = "rates".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.createContext("/stalled", exchange -> {
+            try {
+                TimeUnit.SECONDS.sleep(10);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+        requestFactory = new PooledRequestFactory(
+                "test",
+                2,
+                Duration.ofSeconds(1),
+                Duration.ofSeconds(30),
+                Duration.ofMillis(300),
+                Duration.ofSeconds(30),
+                meterRegistry
+        );
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        requestFactory.destroy();
+        serverExecutor.shutdownNow();
+        server.stop(0);
+    }
+
+    @Test
+    public void testConnectionIsReused() {
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("rates", restTemplate.getForObject(buildUrl("/rates"), String.class));
+        }
+
+        assertNotNull(meterRegistry.find("httpcomponents.httpclient.pool.total.max").tag("httpclient", "test")
+                .gauge());
+        assertEquals(1.0, meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", "test").tag("state", "available").gauge().value(), 0.0);
+    }
+
+    @Test
+    public void testRequestIsAbortedOnTotalTimeout() {
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        long startTime = System.nanoTime();
+        try {
+            restTemplate.getForObject(buildUrl("/stalled"), String.class);
+            fail("Request must be aborted");
+        } catch (ResourceAccessException ex) {
+            assertTrue(Duration.ofNanos(System.nanoTime() - startTime).compareTo(Duration.ofSeconds(5)) < 0);
+        }
+    }
+
+    private String buildUrl(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+}
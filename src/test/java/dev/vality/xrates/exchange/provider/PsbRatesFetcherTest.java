@@ -0,0 +1,145 @@
+package dev.vality.xrates.exchange.provider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vality.xrates.exception.ProviderUnavailableResultException;
+import dev.vality.xrates.exchange.impl.provider.psb.PsbExchangeProvider;
+import dev.vality.xrates.exchange.impl.provider.psb.PsbRatesFetcher;
+import dev.vality.xrates.exchange.impl.provider.psb.data.PsbPaymentSystem;
+import dev.vality.xrates.service.SecretService;
+import dev.vality.xrates.store.ProviderResponseCache;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.anything;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class PsbRatesFetcherTest {
+
+    private static final String RESPONSE = "{'rates':[" +
+            "{'CURR':'USD','IPS':'MasterCard','BUY':'61.55','CB':'63.1385'}," +
+            "{'CURR':'USD','IPS':'Visa','BUY':'60.32','CB':'63.1385'}" +
+            "]}";
+
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    private final MockRestServiceServer mockServer = MockRestServiceServer.bindTo(restTemplate).build();
+
+    private final SecretService secretService = mock(SecretService.class);
+
+    private final LocalDate date = LocalDate.of(2020, 4, 11);
+
+    private PsbRatesFetcher ratesFetcher;
+
+    @Before
+    public void setUp() {
+        when(secretService.getTerminalId(anyString())).thenReturn("12345");
+        when(secretService.getSecretKey(anyString())).thenReturn("C50E41160302E0F5D6D59F1AA3925C45");
+        ratesFetcher = new PsbRatesFetcher(
+                "http://localhost/curr_rate_by_date",
+                restTemplate,
+                secretService,
+                List.of(PsbPaymentSystem.MASTERCARD, PsbPaymentSystem.VISA),
+                Duration.ofMinutes(1)
+        );
+    }
+
+    @Test
+    public void testResponseIsSharedBetweenSubscribers() {
+        mockServer.expect(ExpectedCount.once(), anything())
+                .andRespond(withSuccess(RESPONSE, MediaType.TEXT_PLAIN));
+
+        byte[] mastercardResponse = ratesFetcher.fetch(date, PsbPaymentSystem.MASTERCARD);
+        assertEquals(1, ratesFetcher.heldCount());
+        byte[] visaResponse = ratesFetcher.fetch(date, PsbPaymentSystem.VISA);
+
+        assertEquals(RESPONSE, new String(mastercardResponse, StandardCharsets.UTF_8));
+        assertArrayEquals(mastercardResponse, visaResponse);
+        assertEquals(0, ratesFetcher.heldCount());
+        mockServer.verify();
+    }
+
+    @Test
+    public void testSameSubscriberGetsNewResponse() {
+        mockServer.expect(ExpectedCount.twice(), anything())
+                .andRespond(withSuccess(RESPONSE, MediaType.TEXT_PLAIN));
+
+        ratesFetcher.fetch(date, PsbPaymentSystem.MASTERCARD);
+        ratesFetcher.fetch(date, PsbPaymentSystem.MASTERCARD);
+        ratesFetcher.fetch(date, PsbPaymentSystem.VISA);
+
+        assertEquals(0, ratesFetcher.heldCount());
+        mockServer.verify();
+    }
+
+    @Test
+    public void testFailedResponseIsNotHeld() {
+        mockServer.expect(ExpectedCount.once(), anything()).andRespond(withServerError());
+        mockServer.expect(ExpectedCount.once(), anything())
+                .andRespond(withSuccess(RESPONSE, MediaType.TEXT_PLAIN));
+
+        try {
+            ratesFetcher.fetch(date, PsbPaymentSystem.MASTERCARD);
+            fail("Fetch must fail");
+        } catch (ProviderUnavailableResultException ex) {
+            assertEquals(0, ratesFetcher.heldCount());
+        }
+        ratesFetcher.fetch(date, PsbPaymentSystem.VISA);
+
+        assertEquals(1, ratesFetcher.heldCount());
+        mockServer.verify();
+    }
+
+    @Test
+    public void testProvidersSubscribeTheirPaymentSystems() {
+        PsbRatesFetcher sharedFetcher = new PsbRatesFetcher(
+                "http://localhost/curr_rate_by_date",
+                restTemplate,
+                secretService,
+                Collections.emptyList(),
+                Duration.ofMinutes(1)
+        );
+        mockServer.expect(ExpectedCount.once(), anything())
+                .andRespond(withSuccess(RESPONSE, MediaType.TEXT_PLAIN));
+
+        try {
+            sharedFetcher.fetch(date, PsbPaymentSystem.VISA);
+            fail("Fetch of a payment system without provider must fail");
+        } catch (IllegalArgumentException ex) {
+            assertEquals(0, sharedFetcher.heldCount());
+        }
+        for (PsbPaymentSystem paymentSystem : List.of(PsbPaymentSystem.MASTERCARD, PsbPaymentSystem.VISA)) {
+            new PsbExchangeProvider(
+                    ZoneId.of("Europe/Moscow"),
+                    paymentSystem,
+                    sharedFetcher,
+                    new ObjectMapper(),
+                    ProviderResponseCache.DISABLED
+            );
+        }
+        sharedFetcher.fetch(date, PsbPaymentSystem.MASTERCARD);
+        assertEquals(1, sharedFetcher.heldCount());
+        sharedFetcher.fetch(date, PsbPaymentSystem.VISA);
+
+        assertEquals(0, sharedFetcher.heldCount());
+        mockServer.verify();
+    }
+
+}
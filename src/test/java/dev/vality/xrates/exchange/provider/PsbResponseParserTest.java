@@ -0,0 +1,87 @@
+package dev.vality.xrates.exchange.provider;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vality.xrates.domain.ExchangeRate;
+import dev.vality.xrates.exchange.impl.provider.psb.PsbResponseParser;
+import dev.vality.xrates.exchange.impl.provider.psb.data.PsbExchangeRateData;
+import dev.vality.xrates.exchange.impl.provider.psb.data.PsbExchangeRootData;
+import dev.vality.xrates.exchange.impl.provider.psb.data.PsbPaymentSystem;
+import org.joda.money.CurrencyUnit;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PsbResponseParserTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().configure(JsonParser.Feature.ALLOW_SINGLE_QUOTES, true);
+
+    private final PsbResponseParser parser = new PsbResponseParser(mapper.getFactory());
+
+    @Test
+    public void testParseSameAsJackson() throws IOException {
+        byte[] response = readFixture("psb_rates.json");
+        PsbExchangeRootData rootData = mapper.readValue(response, PsbExchangeRootData.class);
+
+        for (PsbPaymentSystem paymentSystem : PsbPaymentSystem.values()) {
+            List<PsbExchangeRateData> expected = rootData.getRates().stream()
+                    .filter(rate -> paymentSystem.getValue().equals(rate.getIps()))
+                    .collect(Collectors.toList());
+
+            PsbResponseParser.Result result = parser.parse(response, paymentSystem.getValue());
+
+            assertFalse(result.hasError());
+            assertEquals(rootData.getRates().size(), result.getRateCount());
+            assertEquals(expected.size(), result.getExchangeRates().size());
+            for (int i = 0; i < expected.size(); i++) {
+                ExchangeRate exchangeRate = result.getExchangeRates().get(i);
+                assertEquals(CurrencyUnit.of(expected.get(i).getCurrencyCode()), exchangeRate.getSourceCurrency());
+                assertEquals(expected.get(i).getValue(), exchangeRate.getConversionRate());
+            }
+        }
+    }
+
+    @Test
+    public void testParseSkipsOtherPaymentSystems() throws IOException {
+        PsbResponseParser.Result result = parser.parse((
+                "{'rates':[" +
+                "{'CURR':'USD','IPS':'Visa','BUY':'not a number','CB':{'nested':[1,2]}}," +
+                "{'CB':'63.1385','IPS':'MasterCard','BUY':61.55,'CURR':'USD'}," +
+                "{'CURR':'EUR','BUY':'68'}" +
+                "],'DATE':'20200411'}"
+        ).getBytes(StandardCharsets.UTF_8), "MasterCard");
+
+        assertEquals(3, result.getRateCount());
+        assertEquals(1, result.getExchangeRates().size());
+        assertEquals(CurrencyUnit.USD, result.getExchangeRates().get(0).getSourceCurrency());
+        assertEquals(new BigDecimal("61.55"), result.getExchangeRates().get(0).getConversionRate());
+    }
+
+    @Test
+    public void testParseError() throws IOException {
+        PsbResponseParser.Result result = parser.parse(
+                "{'ERROR':'TERMINAL IS NULL'}".getBytes(StandardCharsets.UTF_8),
+                "MasterCard"
+        );
+
+        assertTrue(result.hasError());
+        assertEquals("TERMINAL IS NULL", result.getError());
+        assertEquals(0, result.getRateCount());
+    }
+
+    private byte[] readFixture(String name) throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/fixtures/" + name)) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+}
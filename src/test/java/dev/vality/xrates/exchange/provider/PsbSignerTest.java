@@ -0,0 +1,37 @@
+package dev.vality.xrates.exchange.provider;
+
+import dev.vality.xrates.exchange.impl.provider.psb.PsbSigner;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class PsbSignerTest {
+
+    private final PsbSigner signer = new PsbSigner();
+
+    @Test
+    public void testSign() {
+        String secretKey = "C50E41160302E0F5D6D59F1AA3925C45";
+
+        assertEquals(
+                "7734df96d9f918c2f374091509a8903b8654b46f",
+                signer.sign("12345", secretKey, "12345", "20200411")
+        );
+        assertEquals(
+                "7734df96d9f918c2f374091509a8903b8654b46f",
+                signer.sign("12345", secretKey, "12345", "20200411")
+        );
+    }
+
+    @Test
+    public void testSignWithRotatedKey() {
+        String signature = signer.sign("12345", "C50E41160302E0F5D6D59F1AA3925C45", "12345", "20200411");
+
+        assertNotEquals(
+                signature,
+                signer.sign("12345", "D50E41160302E0F5D6D59F1AA3925C45", "12345", "20200411")
+        );
+    }
+
+}
@@ -0,0 +1,115 @@
+package dev.vality.xrates.handler;
+
+import dev.vality.machinarium.client.EventSinkClient;
+import dev.vality.woody.thrift.impl.http.THSpawnClientBuilder;
+import dev.vality.xrates.rate.Change;
+import dev.vality.xrates.rate.EventRange;
+import dev.vality.xrates.rate.EventSinkSrv;
+import dev.vality.xrates.rate.SinkEvent;
+import dev.vality.xrates.service.EventSinkTailer;
+import dev.vality.xrates.service.SecretService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@TestPropertySource(properties = {
+        "sources.needInitialize=false",
+        "service.eventSink.tailer.enabled=true",
+        "service.eventSink.longPollTimeout=PT2S",
+        "service.eventSink.maxWaiters=1"
+})
+public class EventSinkSubscriptionHandlerTest {
+
+    private static final Duration LONG_POLL_TIMEOUT = Duration.ofSeconds(2);
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private EventSinkClient<Change> eventSinkClient;
+
+    @MockBean
+    private SecretService secretService;
+
+    @Autowired
+    private EventSinkTailer eventSinkTailer;
+
+    @Before
+    public void setup() throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!eventSinkTailer.findLastEventId().isPresent() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(eventSinkTailer.findLastEventId().isPresent());
+    }
+
+    @Test
+    public void testPollingConsumerIsNotDelayed() throws Exception {
+        EventSinkSrv.Iface client = buildClient("/v1/event_sink");
+
+        long start = System.nanoTime();
+        List<SinkEvent> events = client.getEvents(new EventRange(10).setAfter(0));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertTrue(events.isEmpty());
+        assertTrue(elapsed.toString(), elapsed.compareTo(LONG_POLL_TIMEOUT.dividedBy(2)) < 0);
+    }
+
+    @Test
+    public void testSubscribedConsumerWaitsForEvents() throws Exception {
+        EventSinkSrv.Iface client = buildClient("/v1/event_sink/subscription");
+
+        long start = System.nanoTime();
+        List<SinkEvent> events = client.getEvents(new EventRange(10).setAfter(0));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertTrue(events.isEmpty());
+        assertTrue(elapsed.toString(), elapsed.compareTo(LONG_POLL_TIMEOUT.dividedBy(2)) >= 0);
+    }
+
+    @Test
+    public void testSubscribedConsumerIsNotDelayedAboveWaitersLimit() throws Exception {
+        EventSinkSrv.Iface waitingClient = buildClient("/v1/event_sink/subscription");
+        CompletableFuture<List<SinkEvent>> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return waitingClient.getEvents(new EventRange(10).setAfter(0));
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        Thread.sleep(LONG_POLL_TIMEOUT.dividedBy(4).toMillis());
+        EventSinkSrv.Iface client = buildClient("/v1/event_sink/subscription");
+
+        long start = System.nanoTime();
+        List<SinkEvent> events = client.getEvents(new EventRange(10).setAfter(0));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertTrue(events.isEmpty());
+        assertTrue(elapsed.toString(), elapsed.compareTo(LONG_POLL_TIMEOUT.dividedBy(2)) < 0);
+        assertTrue(waiting.get().isEmpty());
+    }
+
+    private EventSinkSrv.Iface buildClient(String path) throws Exception {
+        return new THSpawnClientBuilder()
+                .withAddress(new URI("http://localhost:" + port + path))
+                .withNetworkTimeout((int) LONG_POLL_TIMEOUT.multipliedBy(5).toMillis())
+                .build(EventSinkSrv.Iface.class);
+    }
+
+}
@@ -7,10 +7,13 @@ import dev.vality.machinegun.stateproc.*;
 import dev.vality.woody.api.flow.error.WUnavailableResultException;
 import dev.vality.woody.api.flow.error.WUndefinedResultException;
 import dev.vality.woody.thrift.impl.http.THSpawnClientBuilder;
+import dev.vality.xrates.domain.ChangeSnapshot;
+import dev.vality.xrates.domain.SourceData;
 import dev.vality.xrates.exception.ProviderUnavailableResultException;
 import dev.vality.xrates.exception.UnknownSourceException;
 import dev.vality.xrates.service.ExchangeRateService;
 import dev.vality.xrates.service.SecretService;
+import dev.vality.xrates.util.ProtoUtil;
 import org.apache.thrift.TException;
 import org.junit.Before;
 import org.junit.Test;
@@ -23,11 +26,18 @@ import org.springframework.test.context.junit4.SpringRunner;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 
@@ -99,4 +109,51 @@ public class ProcessorHandlerTest {
                 ));
     }
 
+    @Test
+    public void testSignalTimeoutWhenMachineIsBehind() throws TException {
+        Instant lowerBound = Instant.parse("2020-01-01T00:00:00Z");
+        Duration interval = Duration.ofDays(1);
+        SourceData previousSourceData = new SourceData(
+                lowerBound,
+                lowerBound.plus(interval),
+                lowerBound.plus(interval),
+                Collections.emptyList()
+        );
+        List<SourceData> sourceData = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            sourceData.add(new SourceData(
+                    lowerBound.plus(interval.multipliedBy(i)),
+                    lowerBound.plus(interval.multipliedBy(i + 1L)),
+                    lowerBound.plus(interval.multipliedBy(i + 1L)),
+                    Collections.emptyList()
+            ));
+        }
+        given(exchangeRateService.indexChange(eq("CBR"), any()))
+                .willReturn(ChangeSnapshot.of(ProtoUtil.buildCreatedChange(previousSourceData)));
+        given(exchangeRateService.getExchangeRatesBySourceType(eq(lowerBound.plus(interval)), eq("CBR"), anyInt()))
+                .willReturn(sourceData);
+
+        SignalResult signalResult = client.processSignal(
+                new SignalArgs(
+                        Signal.timeout(new TimeoutSignal()),
+                        new Machine(
+                                "rates",
+                                "CBR",
+                                List.of(new Event(
+                                        1,
+                                        Instant.now().toString(),
+                                        Value.bin(Geck.toMsgPack(ProtoUtil.buildCreatedChange(previousSourceData)))
+                                )),
+                                new HistoryRange()
+                        )
+                ));
+
+        assertEquals(3, signalResult.getChange().getEventsSize());
+        assertEquals(
+                sourceData.get(2).getNextExecutionTime().toString(),
+                signalResult.getAction().getTimer().getSetTimer().getTimer().getDeadline()
+        );
+        verify(exchangeRateService, times(1)).indexChange(eq("CBR"), any());
+    }
+
 }
@@ -1,8 +1,12 @@
 package dev.vality.xrates.handler;
 
+import dev.vality.woody.api.flow.error.WErrorType;
+import dev.vality.woody.api.flow.error.WRuntimeException;
 import dev.vality.woody.thrift.impl.http.THSpawnClientBuilder;
+import dev.vality.xrates.exception.AmountOverflowException;
 import dev.vality.xrates.exception.CurrencyNotFoundException;
 import dev.vality.xrates.exception.QuoteNotFoundException;
+import dev.vality.xrates.exception.UnknownSourceException;
 import dev.vality.xrates.rate.ConversionRequest;
 import dev.vality.xrates.rate.CurrencyNotFound;
 import dev.vality.xrates.rate.QuoteNotFound;
@@ -23,6 +27,8 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.time.Instant;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
@@ -58,7 +64,7 @@ public class RatesHandlerTest {
 
     @Test(expected = QuoteNotFound.class)
     public void testGetChangeByTimeWhenQuoteNotFound() throws TException {
-        given(exchangeRateService.getChangeByTime(any(), any()))
+        given(exchangeRateService.getSnapshotByTime(any(), any()))
                 .willThrow(new QuoteNotFoundException());
         client.getExchangeRates("SOURCE", Instant.now().toString());
     }
@@ -77,4 +83,31 @@ public class RatesHandlerTest {
         client.getConvertedAmount("SOURCE", new ConversionRequest("USD", "RUB", 1000));
     }
 
+    @Test(expected = QuoteNotFound.class)
+    public void testGetConvertedAmountWhenSourceIsUnknown() throws TException {
+        given(exchangeRateService.getConvertedAmount(any(), any()))
+                .willThrow(new UnknownSourceException("Unknown source, sourceType='SOURCE'"));
+        client.getConvertedAmount("SOURCE", new ConversionRequest("USD", "RUB", 1000));
+    }
+
+    @Test(expected = QuoteNotFound.class)
+    public void testGetExchangeRatesWhenSourceIsUnknown() throws TException {
+        given(exchangeRateService.getSnapshotByTime(any(), any()))
+                .willThrow(new UnknownSourceException("Unknown source, sourceType='SOURCE'"));
+        client.getExchangeRates("SOURCE", Instant.now().toString());
+    }
+
+    @Test
+    public void testGetConvertedAmountWhenAmountOverflows() throws TException {
+        given(exchangeRateService.getConvertedAmount(any(), any()))
+                .willThrow(new AmountOverflowException("overflow"));
+        try {
+            client.getConvertedAmount("CBR", new ConversionRequest("USD", "RUB", Long.MAX_VALUE));
+            fail();
+        } catch (WRuntimeException ex) {
+            assertEquals(WErrorType.UNEXPECTED_ERROR, ex.getErrorDefinition().getErrorType());
+            assertEquals(RatesHandler.AMOUNT_OVERFLOW, ex.getErrorDefinition().getErrorReason());
+        }
+    }
+
 }
@@ -0,0 +1,331 @@
+package dev.vality.xrates.load;
+
+import dev.vality.machinegun.msgpack.Nil;
+import dev.vality.machinegun.msgpack.Value;
+import dev.vality.machinegun.stateproc.*;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.thrift.TException;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * In-process stand-in of machinegun automaton and event sink, for running the service in load tests without machinegun.
+ * <p>
+ * Machines and the event sink are kept in memory, signals are delivered directly to the processor
+ * and timers are fired by a scheduler at their deadline. Reads of machines and of the event sink
+ * can be slowed down by an injected latency to emulate a remote machinegun.
+ */
+@Slf4j
+public class InMemoryMachinegun implements AutoCloseable {
+
+    private static final Duration TIMER_RETRY_DELAY = Duration.ofSeconds(30);
+
+    private final Supplier<ProcessorSrv.Iface> processorSupplier;
+
+    private final String eventSinkId;
+
+    private final Map<String, MachineState> machines = new ConcurrentHashMap<>();
+
+    private final List<dev.vality.machinegun.stateproc.SinkEvent> sinkEvents = new ArrayList<>();
+
+    private final ScheduledExecutorService timerScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "in-memory-machinegun-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Duration latency;
+
+    private volatile Duration latencyJitter;
+
+    public InMemoryMachinegun(
+            Supplier<ProcessorSrv.Iface> processorSupplier,
+            String eventSinkId,
+            Duration latency,
+            Duration latencyJitter) {
+        this.processorSupplier = processorSupplier;
+        this.eventSinkId = eventSinkId;
+        this.latency = latency;
+        this.latencyJitter = latencyJitter;
+    }
+
+    public AutomatonSrv.Iface getAutomaton() {
+        return proxy(AutomatonSrv.Iface.class, Map.of(
+                "start", args -> {
+                    start((String) args[0], (String) args[1], (Value) args[2]);
+                    return null;
+                },
+                "getMachine", args -> getMachine((MachineDescriptor) args[0])
+        ));
+    }
+
+    public EventSinkSrv.Iface getEventSink() {
+        return proxy(EventSinkSrv.Iface.class, Map.of(
+                "getHistory", args -> getHistory((String) args[0], (HistoryRange) args[1])
+        ));
+    }
+
+    public void setLatency(Duration latency, Duration latencyJitter) {
+        this.latency = latency;
+        this.latencyJitter = latencyJitter;
+    }
+
+    public void start(String namespace, String machineId, Value args) throws TException {
+        MachineState state = new MachineState(namespace, machineId);
+        if (machines.putIfAbsent(key(namespace, machineId), state) != null) {
+            throw new MachineAlreadyExists();
+        }
+        synchronized (state) {
+            try {
+                processSignal(state, Signal.init(new InitSignal(args)), new HistoryRange());
+            } catch (TException | RuntimeException ex) {
+                machines.remove(key(namespace, machineId), state);
+                throw ex;
+            }
+        }
+    }
+
+    public Machine getMachine(MachineDescriptor machineDescriptor) throws TException {
+        sleepLatency();
+        MachineState state = getMachineState(machineDescriptor.getNs(), machineDescriptor.getRef().getId());
+        HistoryRange range = machineDescriptor.isSetRange() ? machineDescriptor.getRange() : new HistoryRange();
+        synchronized (state) {
+            return buildMachine(state, range);
+        }
+    }
+
+    public List<dev.vality.machinegun.stateproc.SinkEvent> getHistory(String eventSinkId, HistoryRange range)
+            throws TException {
+        sleepLatency();
+        if (!this.eventSinkId.equals(eventSinkId)) {
+            throw new EventSinkNotFound();
+        }
+        synchronized (sinkEvents) {
+            return slice(sinkEvents, range);
+        }
+    }
+
+    /**
+     * Append events to a machine without calling the processor, e.g. to seed history for load tests.
+     * The machine is created if it doesn't exist yet.
+     */
+    public void append(String namespace, String machineId, List<Value> events) {
+        MachineState state = machines.computeIfAbsent(
+                key(namespace, machineId),
+                key -> new MachineState(namespace, machineId)
+        );
+        synchronized (state) {
+            Instant now = Instant.now();
+            for (Value event : events) {
+                appendEvent(state, new Content(event), now);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        timerScheduler.shutdownNow();
+    }
+
+    private void processSignal(MachineState state, Signal signal, HistoryRange range) throws TException {
+        SignalResult signalResult = processorSupplier.get().processSignal(
+                new SignalArgs(signal, buildMachine(state, range))
+        );
+        MachineStateChange change = signalResult.getChange();
+        if (change.isSetAuxState()) {
+            state.auxState = change.getAuxState();
+        }
+        if (change.isSetEvents()) {
+            Instant now = Instant.now();
+            for (Content event : change.getEvents()) {
+                appendEvent(state, event, now);
+            }
+        }
+        applyAction(state, signalResult.getAction());
+    }
+
+    private void applyAction(MachineState state, ComplexAction action) {
+        if (action == null || !action.isSetTimer()) {
+            return;
+        }
+        TimerAction timerAction = action.getTimer();
+        if (timerAction.isSetUnsetTimer()) {
+            cancelTimer(state);
+        } else if (timerAction.isSetSetTimer()) {
+            SetTimerAction setTimerAction = timerAction.getSetTimer();
+            Timer timer = setTimerAction.getTimer();
+            Instant deadline = timer.isSetDeadline()
+                    ? Instant.parse(timer.getDeadline())
+                    : Instant.now().plusSeconds(timer.getTimeout());
+            HistoryRange range = setTimerAction.isSetRange() ? setTimerAction.getRange() : new HistoryRange();
+            scheduleTimer(state, Duration.between(Instant.now(), deadline), range);
+        }
+    }
+
+    private void scheduleTimer(MachineState state, Duration delay, HistoryRange range) {
+        cancelTimer(state);
+        state.timer = timerScheduler.schedule(
+                () -> fireTimer(state, range),
+                Math.max(delay.toMillis(), 0),
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    private void fireTimer(MachineState state, HistoryRange range) {
+        synchronized (state) {
+            state.timer = null;
+            try {
+                processSignal(state, Signal.timeout(new TimeoutSignal()), range);
+            } catch (TException | RuntimeException ex) {
+                log.warn("Failed to process timeout signal, retrying later, namespace='{}', machineId='{}'",
+                        state.namespace, state.machineId, ex);
+                scheduleTimer(state, TIMER_RETRY_DELAY, range);
+            }
+        }
+    }
+
+    private void cancelTimer(MachineState state) {
+        if (state.timer != null) {
+            state.timer.cancel(false);
+            state.timer = null;
+        }
+    }
+
+    private void appendEvent(MachineState state, Content content, Instant createdAt) {
+        Event event = new Event(state.history.size() + 1L, createdAt.toString(), content.getData());
+        state.history.add(event);
+        synchronized (sinkEvents) {
+            sinkEvents.add(new dev.vality.machinegun.stateproc.SinkEvent(
+                    sinkEvents.size() + 1L,
+                    state.machineId,
+                    state.namespace,
+                    event
+            ));
+        }
+    }
+
+    private Machine buildMachine(MachineState state, HistoryRange range) {
+        Machine machine = new Machine(state.namespace, state.machineId, slice(state.history, range), range);
+        machine.setAuxState(state.auxState);
+        return machine;
+    }
+
+    private MachineState getMachineState(String namespace, String machineId) throws MachineNotFound {
+        MachineState state = machines.get(key(namespace, machineId));
+        if (state == null) {
+            throw new MachineNotFound();
+        }
+        return state;
+    }
+
+    private void sleepLatency() {
+        long latencyMillis = latency.toMillis();
+        long jitterMillis = latencyJitter.toMillis();
+        if (jitterMillis > 0) {
+            latencyMillis += ThreadLocalRandom.current().nextLong(jitterMillis);
+        }
+        if (latencyMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Select items by history range, items are expected to be ordered by their ids starting from 1.
+     */
+    private static <T> List<T> slice(List<T> items, HistoryRange range) {
+        int limit = range.isSetLimit() ? range.getLimit() : Integer.MAX_VALUE;
+        List<T> result = new ArrayList<>();
+        if (range.isSetDirection() && range.getDirection() == Direction.backward) {
+            int from = range.isSetAfter() ? (int) Math.min(range.getAfter() - 1, items.size()) : items.size();
+            for (int i = from - 1; i >= 0 && result.size() < limit; i--) {
+                result.add(items.get(i));
+            }
+        } else {
+            int from = range.isSetAfter() ? (int) Math.max(range.getAfter(), 0) : 0;
+            for (int i = from; i < items.size() && result.size() < limit; i++) {
+                result.add(items.get(i));
+            }
+        }
+        return result;
+    }
+
+    private static String key(String namespace, String machineId) {
+        return namespace + "/" + machineId;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Map<String, Operation> operations) {
+        return (T) Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return invokeObjectMethod(proxy, method, args);
+                    }
+                    Operation operation = operations.get(method.getName());
+                    if (operation == null) {
+                        throw new UnsupportedOperationException(String.format(
+                                "Operation is not supported by in-memory machinegun, method='%s'", method.getName()
+                        ));
+                    }
+                    return operation.apply(args);
+                }
+        );
+    }
+
+    private static Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return InMemoryMachinegun.class.getSimpleName();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+
+        Object apply(Object[] args) throws TException;
+
+    }
+
+    private static class MachineState {
+
+        private final String namespace;
+
+        private final String machineId;
+
+        private final List<Event> history = new ArrayList<>();
+
+        private Content auxState = new Content(Value.nl(new Nil()));
+
+        private ScheduledFuture<?> timer;
+
+        private MachineState(String namespace, String machineId) {
+            this.namespace = namespace;
+            this.machineId = machineId;
+        }
+
+    }
+
+}
@@ -0,0 +1,77 @@
+package dev.vality.xrates.load;
+
+import dev.vality.machinegun.stateproc.AutomatonSrv;
+import dev.vality.machinegun.stateproc.EventSinkSrv;
+import dev.vality.machinegun.stateproc.ProcessorSrv;
+import dev.vality.xrates.machinegun.ConcurrencyLimiter;
+import dev.vality.xrates.metrics.MeteredProxy;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+import static dev.vality.xrates.configuration.ApplicationConfig.MG_CLIENT_METRIC_NAME;
+import static dev.vality.xrates.configuration.ApplicationConfig.limitConcurrency;
+
+/**
+ * Replaces machinegun clients with the in-memory stand-in in load tests.
+ */
+@Configuration
+@ConditionalOnProperty(value = "service.mg.inMemory.enabled", havingValue = "true")
+public class InMemoryMachinegunConfig {
+
+    @Bean
+    public InMemoryMachinegun inMemoryMachinegun(
+            @Value("${service.mg.eventSink.sinkId}") String eventSinkId,
+            @Value("${service.mg.inMemory.latency:PT0S}") Duration latency,
+            @Value("${service.mg.inMemory.latencyJitter:PT0S}") Duration latencyJitter,
+            ObjectProvider<ProcessorSrv.Iface> processorHandler
+    ) {
+        return new InMemoryMachinegun(processorHandler::getObject, eventSinkId, latency, latencyJitter);
+    }
+
+    @Bean
+    public AutomatonSrv.Iface automationThriftClient(
+            InMemoryMachinegun inMemoryMachinegun,
+            ObjectProvider<ConcurrencyLimiter> concurrencyLimiter,
+            MeterRegistry meterRegistry
+    ) {
+        return MeteredProxy.wrap(
+                AutomatonSrv.Iface.class,
+                limitConcurrency(
+                        concurrencyLimiter,
+                        AutomatonSrv.Iface.class,
+                        inMemoryMachinegun.getAutomaton(),
+                        "automaton"
+                ),
+                meterRegistry,
+                MG_CLIENT_METRIC_NAME,
+                "automaton"
+        );
+    }
+
+    @Bean
+    public EventSinkSrv.Iface eventSinkThriftClient(
+            InMemoryMachinegun inMemoryMachinegun,
+            ObjectProvider<ConcurrencyLimiter> concurrencyLimiter,
+            MeterRegistry meterRegistry
+    ) {
+        return MeteredProxy.wrap(
+                EventSinkSrv.Iface.class,
+                limitConcurrency(
+                        concurrencyLimiter,
+                        EventSinkSrv.Iface.class,
+                        inMemoryMachinegun.getEventSink(),
+                        "event_sink"
+                ),
+                meterRegistry,
+                MG_CLIENT_METRIC_NAME,
+                "event_sink"
+        );
+    }
+
+}
@@ -0,0 +1,106 @@
+package dev.vality.xrates.load;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Calls an operation at fixed concurrency and reports throughput and latency percentiles.
+ */
+@RequiredArgsConstructor
+public class LoadHarness {
+
+    private final int concurrency;
+
+    private final int requests;
+
+    public Report run(String name, Callable<?> operation) throws Exception {
+        long[] latencies = new long[requests];
+        AtomicInteger counter = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(concurrency);
+        try {
+            long start = System.nanoTime();
+            Future<?>[] workers = new Future<?>[concurrency];
+            for (int i = 0; i < concurrency; i++) {
+                workers[i] = executorService.submit(() -> {
+                    int request;
+                    while ((request = counter.getAndIncrement()) < requests) {
+                        long requestStart = System.nanoTime();
+                        try {
+                            operation.call();
+                        } catch (Exception ex) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[request] = System.nanoTime() - requestStart;
+                    }
+                });
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            Arrays.sort(latencies);
+            return new Report(name, concurrency, requests, errors.get(), System.nanoTime() - start, latencies);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Report {
+
+        private final String name;
+
+        private final int concurrency;
+
+        private final int requests;
+
+        private final int errors;
+
+        private final long elapsedNanos;
+
+        private final long[] sortedLatencies;
+
+        public double getThroughput() {
+            return requests / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+
+        public Duration getPercentile(double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return Duration.ofNanos(sortedLatencies[Math.max(index, 0)]);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%s: concurrency=%d, requests=%d, errors=%d, throughput=%.1f rps, " +
+                    "p50=%.3f ms, p90=%.3f ms, p99=%.3f ms, p99.9=%.3f ms, max=%.3f ms",
+                    name,
+                    concurrency,
+                    requests,
+                    errors,
+                    getThroughput(),
+                    toMillis(getPercentile(50)),
+                    toMillis(getPercentile(90)),
+                    toMillis(getPercentile(99)),
+                    toMillis(getPercentile(99.9)),
+                    toMillis(getPercentile(100))
+            );
+        }
+
+        private static double toMillis(Duration duration) {
+            return duration.toNanos() / 1_000_000.0;
+        }
+
+    }
+
+}
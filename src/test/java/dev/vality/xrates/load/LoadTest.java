@@ -0,0 +1,169 @@
+package dev.vality.xrates.load;
+
+import dev.vality.geck.serializer.Geck;
+import dev.vality.machinegun.msgpack.Value;
+import dev.vality.woody.thrift.impl.http.THSpawnClientBuilder;
+import dev.vality.xrates.cache.ChangeIndex;
+import dev.vality.xrates.domain.ExchangeRate;
+import dev.vality.xrates.domain.SourceData;
+import dev.vality.xrates.exchange.ScheduleTable;
+import dev.vality.xrates.exchange.Source;
+import dev.vality.xrates.rate.ConversionRequest;
+import dev.vality.xrates.rate.EventRange;
+import dev.vality.xrates.rate.EventSinkSrv;
+import dev.vality.xrates.rate.RatesSrv;
+import dev.vality.xrates.service.SecretService;
+import dev.vality.xrates.util.ProtoUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.joda.money.CurrencyUnit;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * End-to-end load of rates and event sink endpoints backed by the in-memory machinegun.
+ * <p>
+ * Only a short smoke run is done by default, the full run is enabled with {@code -Dload.enabled=true}
+ * and tuned with {@code load.concurrency}, {@code load.requests} and {@code load.mgLatencies}
+ * (comma separated durations injected into every machinegun read, e.g. {@code PT0S,PT0.005S,PT0.05S}).
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@TestPropertySource(properties = {"sources.needInitialize=false", "service.mg.inMemory.enabled=true"})
+public class LoadTest {
+
+    private static final int EVENT_SINK_LIMIT = 100;
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private SecretService secretService;
+
+    @Autowired
+    private InMemoryMachinegun inMemoryMachinegun;
+
+    @Autowired
+    private ChangeIndex changeIndex;
+
+    @Autowired
+    private List<Source> sources;
+
+    @Autowired
+    private Source cbrSource;
+
+    @Value("${service.mg.automaton.namespace}")
+    private String namespace;
+
+    private RatesSrv.Iface ratesClient;
+
+    private EventSinkSrv.Iface eventSinkClient;
+
+    private static int eventCount;
+
+    @Before
+    public void setup() throws Exception {
+        ratesClient = new THSpawnClientBuilder()
+                .withAddress(new URI("http://localhost:" + port + "/v1/rates"))
+                .build(RatesSrv.Iface.class);
+        eventSinkClient = new THSpawnClientBuilder()
+                .withAddress(new URI("http://localhost:" + port + "/v1/event_sink"))
+                .build(EventSinkSrv.Iface.class);
+
+        if (eventCount == 0) {
+            for (Source source : sources) {
+                eventCount += seed(source);
+            }
+        }
+    }
+
+    @Test
+    public void testSmoke() throws Exception {
+        List<LoadHarness.Report> reports = runScenarios(new LoadHarness(4, 100), Duration.ofMillis(5));
+        for (LoadHarness.Report report : reports) {
+            assertEquals(report.getName(), 0, report.getErrors());
+        }
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("load.enabled"));
+        LoadHarness loadHarness = new LoadHarness(
+                Integer.getInteger("load.concurrency", 32),
+                Integer.getInteger("load.requests", 20000)
+        );
+        for (String mgLatency : System.getProperty("load.mgLatencies", "PT0S,PT0.005S,PT0.05S").split(",")) {
+            runScenarios(loadHarness, Duration.parse(mgLatency.trim()));
+        }
+    }
+
+    private List<LoadHarness.Report> runScenarios(LoadHarness loadHarness, Duration mgLatency) throws Exception {
+        inMemoryMachinegun.setLatency(mgLatency, Duration.ZERO);
+        changeIndex.clear();
+        ScheduleTable scheduleTable = cbrSource.getScheduleTable();
+        int intervalCount = scheduleTable.size();
+
+        List<LoadHarness.Report> reports = new ArrayList<>();
+        reports.add(loadHarness.run("getConvertedAmount, mgLatency=" + mgLatency, () -> {
+            long sequenceId = ThreadLocalRandom.current().nextInt(intervalCount) + 1L;
+            Instant datetime = scheduleTable.getLowerBound(sequenceId);
+            return ratesClient.getConvertedAmount(
+                    cbrSource.getSourceId(),
+                    new ConversionRequest("USD", "RUB", 10000).setDatetime(datetime.toString())
+            );
+        }));
+        reports.add(loadHarness.run("getEvents, mgLatency=" + mgLatency, () -> eventSinkClient.getEvents(
+                new EventRange(EVENT_SINK_LIMIT).setAfter(ThreadLocalRandom.current().nextInt(eventCount))
+        )));
+        reports.forEach(report -> log.info("{}", report));
+        return reports;
+    }
+
+    private int seed(Source source) {
+        ScheduleTable scheduleTable = source.getScheduleTable();
+        int size = scheduleTable.size();
+        List<Value> events = new ArrayList<>(size);
+        for (long sequenceId = 1; sequenceId <= size; sequenceId++) {
+            SourceData sourceData = new SourceData(
+                    scheduleTable.getLowerBound(sequenceId),
+                    scheduleTable.getUpperBound(sequenceId),
+                    scheduleTable.getUpperBound(sequenceId),
+                    buildRates(sequenceId)
+            );
+            events.add(Value.bin(Geck.toMsgPack(ProtoUtil.buildCreatedChange(sourceData))));
+        }
+        inMemoryMachinegun.append(namespace, source.getSourceId(), events);
+        return size;
+    }
+
+    private List<ExchangeRate> buildRates(long sequenceId) {
+        CurrencyUnit rub = CurrencyUnit.of("RUB");
+        BigDecimal shift = BigDecimal.valueOf(sequenceId % 100, 2);
+        return List.of(
+                new ExchangeRate(CurrencyUnit.USD, rub, new BigDecimal("73.6282").add(shift)),
+                new ExchangeRate(CurrencyUnit.EUR, rub, new BigDecimal("85.853").add(shift)),
+                new ExchangeRate(CurrencyUnit.GBP, rub, new BigDecimal("95.6874").add(shift))
+        );
+    }
+
+}
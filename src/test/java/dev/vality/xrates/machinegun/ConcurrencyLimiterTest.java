@@ -0,0 +1,44 @@
+package dev.vality.xrates.machinegun;
+
+import dev.vality.xrates.exception.MachinegunUnavailableException;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConcurrencyLimiterTest {
+
+    @Test(expected = MachinegunUnavailableException.class)
+    public void testCallIsRejectedWhenLimitIsReached() throws Exception {
+        ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(1, Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Callable<String> client = concurrencyLimiter.wrap(Callable.class, () -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "done";
+        }, "test");
+
+        CompletableFuture<String> inFlightCall = CompletableFuture.supplyAsync(() -> {
+            try {
+                return client.call();
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        started.await(5, TimeUnit.SECONDS);
+        try {
+            client.call();
+        } finally {
+            release.countDown();
+            assertEquals("done", inFlightCall.get(5, TimeUnit.SECONDS));
+            assertEquals(1, concurrencyLimiter.availablePermits());
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package dev.vality.xrates.metrics;
+
+import dev.vality.xrates.domain.ExchangeRate;
+import dev.vality.xrates.domain.FetchedExchangeRates;
+import dev.vality.xrates.exception.ProviderUnavailableResultException;
+import dev.vality.xrates.exchange.ExchangeProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MeteredExchangeProviderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void testRequestedRatesAreTaggedAsSuccess() {
+        new MeteredExchangeProvider(time -> Collections.emptyList(), "CBR", meterRegistry)
+                .getExchangeRates(Instant.now());
+
+        assertEquals(1, count(MeteredProxy.OUTCOME_SUCCESS, MeteredExchangeProvider.NO_ERROR));
+    }
+
+    @Test
+    public void testCachedRatesAreTaggedAsCached() {
+        ExchangeProvider cachedProvider = new ExchangeProvider() {
+            @Override
+            public List<ExchangeRate> getExchangeRates(Instant time) {
+                return fetchExchangeRates(time).getExchangeRates();
+            }
+
+            @Override
+            public FetchedExchangeRates fetchExchangeRates(Instant time) {
+                return FetchedExchangeRates.cached(Collections.emptyList());
+            }
+        };
+
+        new MeteredExchangeProvider(cachedProvider, "CBR", meterRegistry).getExchangeRates(Instant.now());
+
+        assertEquals(1, count(MeteredExchangeProvider.OUTCOME_CACHED, MeteredExchangeProvider.NO_ERROR));
+    }
+
+    @Test
+    public void testFailedFetchIsTaggedWithProviderStatus() {
+        MeteredExchangeProvider provider = new MeteredExchangeProvider(time -> {
+            throw new ProviderUnavailableResultException(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+        }, "CBR", meterRegistry);
+
+        try {
+            provider.getExchangeRates(Instant.now());
+            fail();
+        } catch (ProviderUnavailableResultException ex) {
+            assertEquals(1, count(MeteredExchangeProvider.OUTCOME_ERROR, "502"));
+        }
+    }
+
+    private long count(String outcome, String error) {
+        return meterRegistry.get(MeteredExchangeProvider.METRIC_NAME)
+                .tag("source", "CBR")
+                .tag("outcome", outcome)
+                .tag("error", error)
+                .timer()
+                .count();
+    }
+
+}
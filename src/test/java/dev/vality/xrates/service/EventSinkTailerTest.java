@@ -0,0 +1,117 @@
+package dev.vality.xrates.service;
+
+import dev.vality.machinarium.client.EventSinkClient;
+import dev.vality.machinarium.domain.TMachineEvent;
+import dev.vality.machinarium.domain.TSinkEvent;
+import dev.vality.xrates.base.TimestampInterval;
+import dev.vality.xrates.metrics.SourceFreshnessMetrics;
+import dev.vality.xrates.rate.Change;
+import dev.vality.xrates.rate.ExchangeRateCreated;
+import dev.vality.xrates.rate.ExchangeRateData;
+import dev.vality.xrates.rate.SinkEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EventSinkTailerTest {
+
+    private EventSinkClient<Change> eventSinkClient;
+
+    private EventSinkTailer eventSinkTailer;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        eventSinkClient = mock(EventSinkClient.class);
+        eventSinkTailer = new EventSinkTailer(
+                eventSinkClient,
+                mock(SourceFreshnessMetrics.class),
+                true,
+                3,
+                2,
+                Duration.ofSeconds(1),
+                Duration.ofMinutes(1)
+        );
+    }
+
+    @Test
+    public void testEventsAreServedFromTail() {
+        when(eventSinkClient.getLastEventId()).thenReturn(Optional.of(5L));
+        when(eventSinkClient.getEvents(anyInt(), anyLong())).thenAnswer(invocation -> {
+            int limit = invocation.getArgument(0);
+            long after = invocation.getArgument(1);
+            return buildEvents(after + 1, Math.min(after + limit, 6L));
+        });
+
+        assertNull(eventSinkTailer.findEventsAfter(0, 10));
+        assertEquals(Optional.empty(), eventSinkTailer.findLastEventId());
+
+        eventSinkTailer.sync();
+
+        assertEquals(Optional.of(6L), eventSinkTailer.findLastEventId());
+        assertEquals(List.of(4L, 5L, 6L), getIds(eventSinkTailer.findEventsAfter(3, 10)));
+        assertEquals(List.of(5L), getIds(eventSinkTailer.findEventsAfter(4, 1)));
+        assertEquals(List.of(), getIds(eventSinkTailer.findEventsAfter(6, 10)));
+        assertNull(eventSinkTailer.findEventsAfter(2, 10));
+    }
+
+    @Test
+    public void testLongPollIsWokenUpBySync() throws Exception {
+        AtomicLong lastEventId = new AtomicLong(1);
+        when(eventSinkClient.getLastEventId()).thenReturn(Optional.of(1L));
+        when(eventSinkClient.getEvents(anyInt(), anyLong())).thenAnswer(invocation -> {
+            int limit = invocation.getArgument(0);
+            long after = invocation.getArgument(1);
+            return buildEvents(after + 1, Math.min(after + limit, lastEventId.get()));
+        });
+        eventSinkTailer.sync();
+        assertEquals(List.of(), eventSinkTailer.awaitEventsAfter(1, 10, Duration.ofMillis(10)));
+
+        CompletableFuture<List<SinkEvent>> poll = CompletableFuture.supplyAsync(
+                () -> eventSinkTailer.awaitEventsAfter(1, 10, Duration.ofSeconds(10))
+        );
+        lastEventId.set(2);
+        eventSinkTailer.sync();
+
+        assertEquals(List.of(2L), getIds(poll.get(5, TimeUnit.SECONDS)));
+    }
+
+    private List<TSinkEvent<Change>> buildEvents(long fromId, long toId) {
+        return LongStream.rangeClosed(fromId, toId)
+                .mapToObj(id -> new TSinkEvent<>(
+                        id,
+                        "xrates",
+                        "CBR",
+                        new TMachineEvent<>(
+                                id,
+                                Instant.now(),
+                                Change.created(new ExchangeRateCreated(new ExchangeRateData(
+                                        new TimestampInterval(Instant.now().toString(), Instant.now().toString()),
+                                        List.of()
+                                )))
+                        )
+                ))
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> getIds(List<SinkEvent> events) {
+        return events.stream().map(SinkEvent::getId).collect(Collectors.toList());
+    }
+
+}
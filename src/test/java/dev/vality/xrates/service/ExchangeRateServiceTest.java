@@ -4,8 +4,19 @@ import dev.vality.machinarium.client.AutomatonClient;
 import dev.vality.machinarium.domain.TMachineEvent;
 import dev.vality.machinarium.exception.MachineAlreadyExistsException;
 import dev.vality.machinegun.msgpack.Value;
+import dev.vality.machinegun.stateproc.HistoryRange;
 import dev.vality.xrates.base.Rational;
 import dev.vality.xrates.base.TimestampInterval;
+import dev.vality.xrates.cache.ChangeIndex;
+import dev.vality.xrates.cache.NegativeCache;
+import dev.vality.xrates.domain.ConversionMode;
+import dev.vality.xrates.domain.ConversionResult;
+import dev.vality.xrates.domain.SourceConversionRequest;
+import dev.vality.xrates.exception.CurrencyNotFoundException;
+import dev.vality.xrates.exception.QuoteNotFoundException;
+import dev.vality.xrates.exception.UnknownSourceException;
+import dev.vality.xrates.exchange.ScheduleTable;
+import dev.vality.xrates.exchange.Source;
 import dev.vality.xrates.rate.*;
 import dev.vality.xrates.util.ProtoUtil;
 import org.junit.Before;
@@ -20,12 +31,14 @@ import org.springframework.test.context.junit4.SpringRunner;
 
 import java.time.Instant;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -39,6 +52,15 @@ public class ExchangeRateServiceTest {
     @Autowired
     private ExchangeRateService exchangeRateService;
 
+    @Autowired
+    private ChangeIndex changeIndex;
+
+    @Autowired
+    private NegativeCache negativeCache;
+
+    @Autowired
+    private Source cbrSource;
+
     @MockBean
     private AutomatonClient<Value, Change> automatonClient;
     @MockBean
@@ -50,6 +72,8 @@ public class ExchangeRateServiceTest {
         String secretKey = "C50E41160302E0F5D6D59F1AA3925C45";
         when(secretService.getTerminalId(anyString())).thenReturn(terminalId);
         when(secretService.getSecretKey(anyString())).thenReturn(secretKey);
+        changeIndex.clear();
+        negativeCache.clear();
     }
 
     @Test
@@ -61,53 +85,25 @@ public class ExchangeRateServiceTest {
 
     @Test
     public void testGetChangeByTime() {
-        String sourceId = "SOURCE";
-        int daysCount = 365;
-        LocalDateTime lower = LocalDate.now().minusDays(daysCount).atStartOfDay();
-        LocalDateTime upper = lower.plusDays(1);
-
-        when(
-                automatonClient.getEvents(eq(sourceId), ArgumentMatchers.eq(ProtoUtil.buildFirstEventHistoryRange()))
-        ).thenReturn(
-                List.of(
-                        new TMachineEvent<>(
-                                1,
-                                Instant.now(),
-                                Change.created(
-                                        new ExchangeRateCreated(
-                                                new ExchangeRateData().setInterval(
-                                                        new TimestampInterval(
-                                                                lower.toInstant(ZoneOffset.UTC).toString(),
-                                                                upper.toInstant(ZoneOffset.UTC).toString()
-                                                        )
-                                                )
-                                        )
-                                )
-                        )
-                )
-        );
+        String sourceId = cbrSource.getSourceId();
+        ScheduleTable scheduleTable = cbrSource.getScheduleTable();
+        Instant now = Instant.now();
+        long sequenceId = scheduleTable.findSequenceId(now);
 
         when(
                 automatonClient.getEvents(eq(sourceId),
-                        ArgumentMatchers.eq(ProtoUtil.buildFirstEventHistoryRangeAfter(daysCount)))
+                        ArgumentMatchers.eq(ProtoUtil.buildFirstEventHistoryRangeAfter(sequenceId - 1)))
         ).thenReturn(
                 List.of(
                         new TMachineEvent<>(
-                                1,
+                                sequenceId,
                                 Instant.now(),
                                 Change.created(
                                         new ExchangeRateCreated(
                                                 new ExchangeRateData().setInterval(
                                                         new TimestampInterval(
-                                                                LocalDate.now()
-                                                                        .atStartOfDay()
-                                                                        .toInstant(ZoneOffset.UTC)
-                                                                        .toString(),
-                                                                LocalDate.now()
-                                                                        .plusDays(1)
-                                                                        .atStartOfDay()
-                                                                        .toInstant(ZoneOffset.UTC)
-                                                                        .toString()
+                                                                scheduleTable.getLowerBound(sequenceId).toString(),
+                                                                scheduleTable.getUpperBound(sequenceId).toString()
                                                         )
                                                 )
                                         )
@@ -116,12 +112,95 @@ public class ExchangeRateServiceTest {
                 )
         );
 
+        Change change = exchangeRateService.getChangeByTime(sourceId, now);
+        assertTrue(ProtoUtil.getLowerBound(change).isBefore(now));
+        assertTrue(ProtoUtil.getUpperBound(change).isAfter(now));
+
+        assertEquals(change, exchangeRateService.getChangeByTime(sourceId, now));
+        verify(automatonClient, times(1)).getEvents(eq(sourceId), any());
+    }
+
+    @Test(expected = QuoteNotFoundException.class)
+    public void testGetChangeByTimeBeforeInitialTime() {
+        try {
+            exchangeRateService.getChangeByTime(cbrSource.getSourceId(), cbrSource.getInitialTime().minusSeconds(1));
+        } finally {
+            verify(automatonClient, never()).getEvents(any(), any());
+        }
+    }
+
+    @Test(expected = UnknownSourceException.class)
+    public void testGetChangeByTimeOfUnknownSource() {
+        try {
+            exchangeRateService.getChangeByTime("SOURCE", Instant.now());
+        } finally {
+            verify(automatonClient, never()).getEvents(any(), any());
+        }
+    }
+
+    @Test
+    public void testGetChangeByTimeWhenChangeIsNotCreatedYet() {
+        Instant now = Instant.now();
+        when(automatonClient.getEvents(any(), any())).thenReturn(List.of());
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                exchangeRateService.getChangeByTime(cbrSource.getSourceId(), now);
+                fail();
+            } catch (QuoteNotFoundException ex) {
+                // expected
+            }
+        }
+        // the interval's event and the first event, to check the schedule against history
+        verify(automatonClient, times(2)).getEvents(any(), any());
+    }
+
+    @Test
+    public void testGetChangeByTimeWhenScheduleDiffersFromHistory() {
+        String sourceId = cbrSource.getSourceId();
+        ScheduleTable scheduleTable = cbrSource.getScheduleTable();
         Instant now = Instant.now();
-        Change change = exchangeRateService.getChangeByTime("SOURCE", now);
+        assertTrue(scheduleTable.findSequenceId(now) > 0);
+        // the machine was created with an initial time a day earlier than the configured one
+        Instant historyStart = scheduleTable.getLowerBound(1).minus(1, ChronoUnit.DAYS);
+        when(automatonClient.getEvents(eq(sourceId), any())).thenAnswer(invocation -> {
+            HistoryRange historyRange = invocation.getArgument(1);
+            long sequenceId = historyRange.isSetAfter() ? historyRange.getAfter() + 1 : 1;
+            Instant lowerBound = historyStart.plus(sequenceId - 1, ChronoUnit.DAYS);
+            return List.of(new TMachineEvent<>(
+                    sequenceId,
+                    Instant.now(),
+                    Change.created(new ExchangeRateCreated(new ExchangeRateData().setInterval(
+                            new TimestampInterval(
+                                    lowerBound.toString(),
+                                    lowerBound.plus(1, ChronoUnit.DAYS).toString()
+                            )
+                    )))
+            ));
+        });
+
+        Change change = exchangeRateService.getChangeByTime(sourceId, now);
+
         assertTrue(ProtoUtil.getLowerBound(change).isBefore(now));
         assertTrue(ProtoUtil.getUpperBound(change).isAfter(now));
     }
 
+    @Test
+    public void testPreloadChanges() {
+        String sourceId = cbrSource.getSourceId();
+        ScheduleTable scheduleTable = cbrSource.getScheduleTable();
+        when(automatonClient.getEvents(eq(sourceId), eq(ProtoUtil.buildHistoryRangeAfter(0, 2))))
+                .thenReturn(List.of(
+                        buildEvent(scheduleTable, 1, buildQuote("USD", "RUB", new Rational(700247, 10000))),
+                        buildEvent(scheduleTable, 2, buildQuote("USD", "RUB", new Rational(710247, 10000)))
+                ));
+
+        assertEquals(2, exchangeRateService.preloadChanges(sourceId, 0, 2));
+        assertEquals(2, changeIndex.size(sourceId));
+        assertEquals(2, exchangeRateService.preloadChanges(sourceId, 0, 2));
+        verify(automatonClient, times(1)).getEvents(any(), any());
+    }
+
     @Test
     public void testConvertAmount() {
         ConversionRequest conversionRequest = new ConversionRequest()
@@ -172,7 +251,112 @@ public class ExchangeRateServiceTest {
                         )
                 );
 
-        assertEquals(7002, exchangeRateService.getConvertedAmount("SOURCE", conversionRequest).longValue());
+        assertEquals(new Rational(700247, 100), exchangeRateService.getConvertedAmount("CBR", conversionRequest));
+    }
+
+    @Test
+    public void testConvertAmountWithDerivedRates() {
+        Instant now = Instant.now();
+        when(automatonClient.getEvents(any(), any()))
+                .thenReturn(List.of(buildEvent(
+                        now,
+                        buildQuote("USD", "RUB", new Rational(700247, 10000)),
+                        buildQuote("EUR", "RUB", new Rational(781234, 10000))
+                )));
+
+        ConversionRequest usdToEur = new ConversionRequest("USD", "EUR", 100).setDatetime(now.toString());
+        assertEquals(
+                new Rational(35012350, 390617),
+                exchangeRateService.getConvertedAmount("CBR", usdToEur, ConversionMode.DERIVED)
+        );
+
+        ConversionRequest rubToUsd = new ConversionRequest("RUB", "USD", 700247).setDatetime(now.toString());
+        assertEquals(
+                new Rational(10000, 1),
+                exchangeRateService.getConvertedAmount("CBR", rubToUsd, ConversionMode.DERIVED)
+        );
+    }
+
+    @Test(expected = CurrencyNotFoundException.class)
+    public void testConvertAmountWithoutDerivedRates() {
+        Instant now = Instant.now();
+        when(automatonClient.getEvents(any(), any()))
+                .thenReturn(List.of(buildEvent(now, buildQuote("USD", "RUB", new Rational(700247, 10000)))));
+
+        exchangeRateService.getConvertedAmount(
+                "CBR",
+                new ConversionRequest("RUB", "USD", 100).setDatetime(now.toString()),
+                ConversionMode.DIRECT
+        );
+    }
+
+    @Test
+    public void testConvertAmounts() {
+        Instant now = Instant.now();
+        when(automatonClient.getEvents(any(), any()))
+                .thenReturn(List.of(buildEvent(now, buildQuote("USD", "RUB", new Rational(700247, 10000)))));
+
+        List<ConversionResult> results = exchangeRateService.getConvertedAmounts(
+                List.of(
+                        new SourceConversionRequest(
+                                "CBR",
+                                new ConversionRequest("USD", "RUB", 100).setDatetime(now.toString())
+                        ),
+                        new SourceConversionRequest(
+                                "UNKNOWN",
+                                new ConversionRequest("USD", "RUB", 100).setDatetime(now.toString())
+                        ),
+                        new SourceConversionRequest(
+                                "CBR",
+                                new ConversionRequest("USD", "RUB", 200).setDatetime(now.minusSeconds(60).toString())
+                        ),
+                        new SourceConversionRequest(
+                                "CBR",
+                                new ConversionRequest("EUR", "RUB", 100).setDatetime(now.toString())
+                        ),
+                        new SourceConversionRequest(
+                                "CBR",
+                                new ConversionRequest("USD", "RUB", 100).setDatetime("yesterday")
+                        )
+                ),
+                ConversionMode.DIRECT
+        );
+
+        assertEquals(5, results.size());
+        assertEquals(new Rational(700247, 100), results.get(0).getConvertedAmount());
+        assertTrue(results.get(1).getError() instanceof UnknownSourceException);
+        assertEquals(new Rational(700247, 50), results.get(2).getConvertedAmount());
+        assertTrue(results.get(3).getError() instanceof CurrencyNotFoundException);
+        assertTrue(results.get(4).getError() instanceof DateTimeParseException);
+        verify(automatonClient, times(1)).getEvents(any(), any());
+    }
+
+    private TMachineEvent<Change> buildEvent(Instant now, Quote... quotes) {
+        ScheduleTable scheduleTable = cbrSource.getScheduleTable();
+        return buildEvent(scheduleTable, scheduleTable.findSequenceId(now), quotes);
+    }
+
+    private TMachineEvent<Change> buildEvent(ScheduleTable scheduleTable, long sequenceId, Quote... quotes) {
+        return new TMachineEvent<>(
+                sequenceId,
+                Instant.now(),
+                Change.created(
+                        new ExchangeRateCreated(
+                                new ExchangeRateData()
+                                        .setInterval(
+                                                new TimestampInterval(
+                                                        scheduleTable.getLowerBound(sequenceId).toString(),
+                                                        scheduleTable.getUpperBound(sequenceId).toString()
+                                                )
+                                        )
+                                        .setQuotes(List.of(quotes))
+                        )
+                )
+        );
+    }
+
+    private Quote buildQuote(String source, String destination, Rational rational) {
+        return new Quote(new Currency(source, (short) 2), new Currency(destination, (short) 2), rational);
     }
 
 }
@@ -0,0 +1,83 @@
+package dev.vality.xrates.service;
+
+import dev.vality.adapter.common.secret.SecretRef;
+import dev.vality.adapter.common.secret.SecretValue;
+import dev.vality.adapter.common.secret.VaultSecretService;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SecretServiceTest {
+
+    private final VaultSecretService vaultSecretService = mock(VaultSecretService.class);
+
+    private SecretService secretService;
+
+    @After
+    public void tearDown() {
+        secretService.destroy();
+    }
+
+    @Test
+    public void testSecretIsCached() {
+        mockSecret("12345");
+        secretService = new SecretService(vaultSecretService, Duration.ofHours(1), Duration.ofHours(1));
+
+        assertEquals("12345", secretService.getTerminalId("MasterCard"));
+        assertEquals("12345", secretService.getTerminalId("MasterCard"));
+        assertEquals("12345", secretService.getSecretKey("MasterCard"));
+
+        verify(vaultSecretService, times(2)).getSecret(any(), any(SecretRef.class));
+    }
+
+    @Test
+    public void testSecretIsRefreshedInBackground() {
+        mockSecret("12345");
+        secretService = new SecretService(vaultSecretService, Duration.ofHours(1), Duration.ZERO);
+
+        assertEquals("12345", secretService.getTerminalId("MasterCard"));
+        mockSecret("54321");
+        assertEquals("12345", secretService.getTerminalId("MasterCard"));
+
+        verify(vaultSecretService, timeout(5000).times(2)).getSecret(any(), any(SecretRef.class));
+    }
+
+    @Test
+    public void testCachedSecretIsKeptWhenRefreshFails() {
+        mockSecret("12345");
+        secretService = new SecretService(vaultSecretService, Duration.ofHours(1), Duration.ZERO);
+
+        assertEquals("12345", secretService.getTerminalId("MasterCard"));
+        when(vaultSecretService.getSecret(any(), any(SecretRef.class))).thenThrow(new IllegalStateException("down"));
+        assertEquals("12345", secretService.getTerminalId("MasterCard"));
+
+        verify(vaultSecretService, timeout(5000).times(2)).getSecret(any(), any(SecretRef.class));
+        assertEquals("12345", secretService.getTerminalId("MasterCard"));
+    }
+
+    @Test
+    public void testExpiredSecretIsLoaded() {
+        mockSecret("12345");
+        secretService = new SecretService(vaultSecretService, Duration.ZERO, Duration.ZERO);
+
+        assertEquals("12345", secretService.getTerminalId("MasterCard"));
+        mockSecret("54321");
+        assertEquals("54321", secretService.getTerminalId("MasterCard"));
+    }
+
+    private void mockSecret(String value) {
+        SecretValue secretValue = mock(SecretValue.class);
+        when(secretValue.getValue()).thenReturn(value);
+        when(vaultSecretService.getSecret(any(), any(SecretRef.class))).thenReturn(secretValue);
+    }
+
+}
@@ -0,0 +1,68 @@
+package dev.vality.xrates.store;
+
+import dev.vality.xrates.base.Rational;
+import dev.vality.xrates.base.TimestampInterval;
+import dev.vality.xrates.rate.Change;
+import dev.vality.xrates.rate.Currency;
+import dev.vality.xrates.rate.ExchangeRateCreated;
+import dev.vality.xrates.rate.ExchangeRateData;
+import dev.vality.xrates.rate.Quote;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MappedChangeStoreTest {
+
+    private static final Instant LOWER_BOUND = Instant.parse("2020-04-10T21:00:00Z");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testAppendAndFind() throws Exception {
+        Path path = temporaryFolder.getRoot().toPath().resolve("changes.bin");
+        Change first = buildChange(LOWER_BOUND, new Rational(736282, 10000));
+        Change second = buildChange(LOWER_BOUND.plus(Duration.ofDays(1)), new Rational(741234, 10000));
+
+        try (MappedChangeStore changeStore = new MappedChangeStore(path, 64, Duration.ofSeconds(1))) {
+            changeStore.append("CBR", first);
+            changeStore.append("CBR", second);
+            changeStore.append("CBR", first);
+
+            assertEquals(first, changeStore.find("CBR", LOWER_BOUND.plusSeconds(60)));
+            assertEquals(second, changeStore.find("CBR", LOWER_BOUND.plus(Duration.ofDays(1))));
+            assertNull(changeStore.find("CBR", LOWER_BOUND.minusMillis(1)));
+            assertNull(changeStore.find("CBR", LOWER_BOUND.plus(Duration.ofDays(2))));
+            assertNull(changeStore.find("PSB-VISA", LOWER_BOUND));
+        }
+
+        try (MappedChangeStore changeStore = new MappedChangeStore(path, 64, Duration.ofSeconds(1))) {
+            assertEquals(first, changeStore.find("CBR", LOWER_BOUND));
+            assertEquals(second, changeStore.find("CBR", LOWER_BOUND.plus(Duration.ofDays(1))));
+        }
+    }
+
+    private Change buildChange(Instant lowerBound, Rational rate) {
+        return Change.created(new ExchangeRateCreated(
+                new ExchangeRateData()
+                        .setInterval(new TimestampInterval(
+                                lowerBound.toString(),
+                                lowerBound.plus(Duration.ofDays(1)).toString()
+                        ))
+                        .setQuotes(List.of(new Quote(
+                                new Currency("USD", (short) 2),
+                                new Currency("RUB", (short) 2),
+                                rate
+                        )))
+        ));
+    }
+
+}
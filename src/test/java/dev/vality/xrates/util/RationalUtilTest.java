@@ -0,0 +1,33 @@
+package dev.vality.xrates.util;
+
+import dev.vality.xrates.base.Rational;
+import dev.vality.xrates.exception.AmountOverflowException;
+import org.apache.commons.math3.fraction.BigFraction;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RationalUtilTest {
+
+    @Test
+    public void testMultiply() {
+        assertEquals(new Rational(700247, 100), RationalUtil.multiply(100, 700247, 10000));
+        assertEquals(new Rational(-700247, 100), RationalUtil.multiply(-100, 700247, 10000));
+        assertEquals(new Rational(-3, 2), RationalUtil.multiply(3, 2, -4));
+        assertEquals(new Rational(0, 1), RationalUtil.multiply(0, 700247, 10000));
+        assertEquals(new Rational(Long.MAX_VALUE, 1), RationalUtil.multiply(Long.MAX_VALUE, 3, 3));
+        assertEquals(new Rational(3, 1), RationalUtil.multiply(3, Long.MIN_VALUE, Long.MIN_VALUE));
+    }
+
+    @Test
+    public void testMultiplyBigFraction() {
+        assertEquals(new Rational(7, 2), RationalUtil.multiply(7, new BigFraction(1, 2)));
+        assertEquals(new Rational(1, 1), RationalUtil.multiply(Long.MAX_VALUE, new BigFraction(1, Long.MAX_VALUE)));
+    }
+
+    @Test(expected = AmountOverflowException.class)
+    public void testMultiplyOverflow() {
+        RationalUtil.multiply(Long.MAX_VALUE, 3, 2);
+    }
+
+}